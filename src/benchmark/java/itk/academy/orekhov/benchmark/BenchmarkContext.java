@@ -0,0 +1,50 @@
+package itk.academy.orekhov.benchmark;
+
+import itk.academy.orekhov.Application;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Запуск приложения для бенчмарков на встроенной базе H2 вместо PostgreSQL
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    // Поднимает полный контекст приложения (включая Tomcat на случайном порту) с отдельной базой в памяти
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        String[] args = Stream.concat(Stream.of( // Аргументы командной строки перекрывают application.properties
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.properties.hibernate.hbm2ddl.import_files=db/benchmark_h2_schema.sql", // Миграции V3 и V4 рассчитаны на PostgreSQL
+                "--app.order-rollups.enabled=false", // H2 не поддерживает insert ... on conflict do update
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN"), Stream.of(extraArgs)).toArray(String[]::new);
+        return new SpringApplicationBuilder(Application.class).run(args);
+    }
+
+    // Заполняет базу пользователями с заданным количеством заказов и возвращает их id
+    static List<Long> seed(ConfigurableApplicationContext context, int users, int ordersPerUser) {
+        UserRepository repository = context.getBean(UserRepository.class);
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = BenchmarkData.user(null, ordersPerUser);
+            user.setEmail("seed" + i + "@example.com");
+            batch.add(user);
+        }
+        return repository.saveAll(batch).stream().map(User::getId).toList();
+    }
+}
@@ -0,0 +1,31 @@
+package itk.academy.orekhov.benchmark;
+
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+
+// Генерация тестовых данных для бенчмарков
+final class BenchmarkData {
+
+    private static final String[] STATUSES = {"Processing", "Shipped", "Delivered"};
+
+    private BenchmarkData() {
+    }
+
+    // Пользователь с заданным количеством заказов (без сохранения в базу); id == null - новый пользователь
+    static User user(Long id, int orders) {
+        User user = new User();
+        user.setId(id);
+        user.setName("User " + id);
+        user.setEmail("user" + id + "@example.com");
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setId(id != null ? id * 1_000 + i : null);
+            order.setProduct("Product " + i);
+            order.setAmount(10.0 + i);
+            order.setStatus(STATUSES[i % STATUSES.length]);
+            order.setUser(user);
+            user.getOrders().add(order);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,23 @@
+package itk.academy.orekhov.benchmark;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Имитация медленной базы: каждый SQL-запрос Hibernate задерживается на benchmark.jdbc-latency-ms миллисекунд.
+// Задержка происходит в транзакции, то есть с занятым соединением, как при ожидании ответа PostgreSQL
+public class JdbcLatencyInspector implements StatementInspector {
+
+    static final String LATENCY_PROPERTY = "benchmark.jdbc-latency-ms";
+
+    @Override
+    public String inspect(String sql) {
+        long latency = Long.getLong(LATENCY_PROPERTY, 0L);
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency); // Виртуальный поток при этом освобождает поток-носитель
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,67 @@
+package itk.academy.orekhov.benchmark;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.json.JsonViewWriters;
+import itk.academy.orekhov.json.PrecompiledViewHttpMessageConverter;
+import itk.academy.orekhov.view.Views;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение стандартного MappingJackson2HttpMessageConverter (фильтрация @JsonView при записи)
+// и PrecompiledViewHttpMessageConverter (writer, построенный заранее под представление)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonViewSerializationBenchmark {
+
+    @Param({"UserSummary", "UserDetails"})
+    public String view; // Представление, в котором пишется ответ
+
+    @Param({"0", "10", "100"})
+    public int ordersPerUser; // Количество заказов у пользователя (важно для UserDetails)
+
+    private MappingJackson2HttpMessageConverter standardConverter;
+    private PrecompiledViewHttpMessageConverter precompiledConverter;
+    private MappingJacksonValue value;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = JsonMapper.builder().enable(MapperFeature.DEFAULT_VIEW_INCLUSION).build();
+        JsonViewWriters writers = new JsonViewWriters(mapper,
+                List.of(Views.UserSummary.class, Views.UserDetails.class),
+                List.of(User.class, Order.class, UserSummaryDto.class));
+        standardConverter = new MappingJackson2HttpMessageConverter(mapper);
+        precompiledConverter = new PrecompiledViewHttpMessageConverter(mapper, writers);
+
+        value = new MappingJacksonValue(BenchmarkData.user(1L, ordersPerUser));
+        value.setSerializationView("UserSummary".equals(view) ? Views.UserSummary.class : Views.UserDetails.class);
+    }
+
+    @Benchmark
+    public byte[] standardConverter() throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        standardConverter.write(value, User.class, null, output);
+        return output.getBodyAsBytes();
+    }
+
+    @Benchmark
+    public byte[] precompiledConverter() throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        precompiledConverter.write(value, User.class, null, output);
+        return output.getBodyAsBytes();
+    }
+}
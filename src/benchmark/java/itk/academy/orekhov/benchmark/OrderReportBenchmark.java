@@ -0,0 +1,53 @@
+package itk.academy.orekhov.benchmark;
+
+import itk.academy.orekhov.dto.OrderReportDto;
+import itk.academy.orekhov.service.OrderReportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// Построение отчета по всем пользователям и заказам в зависимости от числа потоков fork-join:
+// parallelism=1 - один поток читает диапазоны по очереди, как последовательный проход по всем пользователям.
+// Время должно падать с ростом parallelism, пока хватает ядер и соединений пула
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderReportBenchmark {
+
+    private static final int SEEDED_USERS = 50_000; // Количество пользователей в базе
+    private static final int ORDERS_PER_USER = 5; // Заказов у каждого пользователя
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism; // Потоков пула отчетов
+
+    @Param({"2000"})
+    public int rangeSize; // Диапазон id, читаемый одним запросом
+
+    private ConfigurableApplicationContext context;
+    private OrderReportService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("report" + parallelism,
+                "--app.reports.parallelism=" + parallelism,
+                "--app.reports.range-size=" + rangeSize,
+                "--spring.datasource.hikari.maximum-pool-size=" + (parallelism + 2)); // Соединение на каждый поток отчета
+        BenchmarkContext.seed(context, SEEDED_USERS, ORDERS_PER_USER);
+        service = context.getBean(OrderReportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Отчет с 10 крупнейшими покупателями
+    @Benchmark
+    public OrderReportDto buildReport() {
+        return service.buildReport(10);
+    }
+}
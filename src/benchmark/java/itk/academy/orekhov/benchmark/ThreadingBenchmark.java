@@ -0,0 +1,83 @@
+package itk.academy.orekhov.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность HTTP при высокой конкурентности и медленной базе:
+// пул платформенных потоков Tomcat (200 потоков) против виртуальных потоков (профиль virtual-threads, Java 21+)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadingBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 1_000; // Одновременных запросов в одной волне
+    private static final int SEEDED_USERS = 1_000; // Количество пользователей в базе перед измерением
+
+    @Param({"platform", "virtual"})
+    public String threads; // Режим потоков сервера
+
+    @Param({"20"})
+    public long jdbcLatencyMs; // Имитируемая задержка каждого SQL-запроса
+
+    @Param({"400"})
+    public int poolSize; // Размер пула соединений одинаков в обоих режимах, чтобы ограничением было число потоков
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads require Java 21+, running on " + Runtime.version());
+        }
+        System.setProperty(JdbcLatencyInspector.LATENCY_PROPERTY, "0"); // Без задержки при заполнении базы
+        context = BenchmarkContext.start("threading" + threads,
+                "--spring.profiles.active=" + (virtual ? "virtual-threads" : "default"),
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + JdbcLatencyInspector.class.getName(),
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                "--spring.datasource.hikari.connection-timeout=30000",
+                "--server.tomcat.accept-count=" + CONCURRENT_REQUESTS); // Очередь подключений не ограничивает базовый режим
+        BenchmarkContext.seed(context, SEEDED_USERS, 0);
+        System.setProperty(JdbcLatencyInspector.LATENCY_PROPERTY, Long.toString(jdbcLatencyMs));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        uri = URI.create("http://localhost:" + port + "/api/users?limit=20");
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.clearProperty(JdbcLatencyInspector.LATENCY_PROPERTY);
+        context.close();
+    }
+
+    // Волна одновременных GET /api/users; результат - запросы в секунду
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public void concurrentRequests() {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONCURRENT_REQUESTS];
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("Unexpected status " + response.statusCode());
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+    }
+}
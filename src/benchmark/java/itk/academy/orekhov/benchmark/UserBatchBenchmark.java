@@ -0,0 +1,67 @@
+package itk.academy.orekhov.benchmark;
+
+import itk.academy.orekhov.dto.BatchItemResult;
+import itk.academy.orekhov.dto.UserDto;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.repository.UserRepository;
+import itk.academy.orekhov.service.UserBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Вставка пачки пользователей: по одному save на пользователя против пакетной вставки UserBatchService
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserBatchBenchmark {
+
+    @Param({"1000"})
+    public int users; // Количество пользователей в одной операции
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserBatchService userBatchService;
+    private final AtomicLong sequence = new AtomicLong(); // Уникальные email для записываемых пользователей
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("batch" + users);
+        userRepository = context.getBean(UserRepository.class);
+        userBatchService = context.getBean(UserBatchService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Как POST /api/users: отдельная транзакция и отдельный INSERT на каждого пользователя
+    @Benchmark
+    public List<User> saveOneByOne() {
+        List<User> saved = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setName("Single");
+            user.setEmail("single" + sequence.incrementAndGet() + "@example.com");
+            saved.add(userRepository.save(user));
+        }
+        return saved;
+    }
+
+    // Как POST /api/users/batch: одна транзакция, INSERT отправляются пакетами JDBC
+    @Benchmark
+    public List<BatchItemResult> createBatch() {
+        List<UserDto> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            batch.add(new UserDto(null, "Batch", "batch" + sequence.incrementAndGet() + "@example.com"));
+        }
+        return userBatchService.createUsers(batch);
+    }
+}
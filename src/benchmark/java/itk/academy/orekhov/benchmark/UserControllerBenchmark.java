@@ -0,0 +1,81 @@
+package itk.academy.orekhov.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Полный путь запроса: HTTP-клиент -> Tomcat -> UserController -> репозиторий (H2) -> сериализация JSON
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserControllerBenchmark {
+
+    private static final int SEEDED_USERS = 1_000; // Количество пользователей в базе перед измерением
+
+    @Param({"0", "10", "100"})
+    public int ordersPerUser; // Количество заказов у каждого пользователя
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private List<Long> ids;
+    private final AtomicLong sequence = new AtomicLong(); // Уникальные email для создаваемых пользователей
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("controller" + ordersPerUser);
+        ids = BenchmarkContext.seed(context, SEEDED_USERS, ordersPerUser);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/users";
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // GET /api/users/{id} - представление UserDetails
+    @Benchmark
+    public String getUserById() throws IOException, InterruptedException {
+        Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build(), 200);
+    }
+
+    // GET /api/users - страница в представлении UserSummary
+    @Benchmark
+    public String getUsersPage() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "?limit=100")).GET().build(), 200);
+    }
+
+    // POST /api/users - создание пользователя
+    @Benchmark
+    public String createUser() throws IOException, InterruptedException {
+        String body = "{\"name\":\"Bench\",\"email\":\"bench" + sequence.incrementAndGet() + "@example.com\"}";
+        return send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), 201);
+    }
+
+    private String send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,69 @@
+package itk.academy.orekhov.benchmark;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пропускная способность чтения и записи через UserRepository на встроенной базе H2
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    private static final int SEEDED_USERS = 1_000; // Количество пользователей в базе перед измерением
+
+    @Param({"0", "10", "100"})
+    public int ordersPerUser; // Количество заказов у каждого пользователя
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private List<Long> ids;
+    private final AtomicLong sequence = new AtomicLong(); // Уникальные email для записываемых пользователей
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("repository" + ordersPerUser);
+        userRepository = context.getBean(UserRepository.class);
+        ids = BenchmarkContext.seed(context, SEEDED_USERS, ordersPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Чтение пользователя с заказами для представления UserDetails
+    @Benchmark
+    public User findWithOrdersById() {
+        return userRepository.findWithOrdersById(randomId()).orElseThrow();
+    }
+
+    // Чтение страницы проекций для представления UserSummary
+    @Benchmark
+    public List<UserSummaryDto> findSummariesPage() {
+        return userRepository.findSummariesAfter(0L, Limit.of(100));
+    }
+
+    // Запись нового пользователя с заказами
+    @Benchmark
+    public User saveUserWithOrders() {
+        User user = BenchmarkData.user(null, ordersPerUser);
+        user.setEmail("write" + sequence.incrementAndGet() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,107 @@
+package itk.academy.orekhov.benchmark;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.readmodel.UserSummaryIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение Map<Long, User> из сущностей и UserSummaryIndex: занимаемая память (footprint) и скорость поиска (lookup).
+// footprint строит структуру на users пользователей и сообщает прирост кучи после сборки мусора
+// во вторичных счетчиках retainedBytes и bytesPerUser (столбцы ·retainedBytes и ·bytesPerUser в отчете JMH)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"}) // Фиксированная куча: изменение размера не искажает замер
+public class UserSummaryIndexBenchmark {
+
+    @Param({"entityMap", "index"})
+    public String structure; // Хранилище пользователей
+
+    @Param({"100000"})
+    public int users; // Количество пользователей в хранилище
+
+    private Map<Long, User> entityMap;
+    private UserSummaryIndex index;
+
+    // Замер памяти: вторичные счетчики отчета JMH
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytes; // Прирост занятой кучи после построения хранилища
+        public long bytesPerUser; // То же в пересчете на одного пользователя
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("entityMap".equals(structure)) {
+            entityMap = entityMap(users);
+        } else {
+            index = index(users);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public Object footprint(Footprint footprint) {
+        entityMap = null; // Хранилище из setUp не должно попасть в замер
+        index = null;
+        long before = usedHeap();
+        if ("entityMap".equals(structure)) {
+            entityMap = entityMap(users); // Остается в поле: и для замера, и для lookup
+        } else {
+            index = index(users);
+        }
+        footprint.retainedBytes = usedHeap() - before;
+        footprint.bytesPerUser = footprint.retainedBytes / users;
+        return entityMap != null ? entityMap : index;
+    }
+
+    // Поиск случайного пользователя с преобразованием в UserSummary, как его отдает /api/users/{id}/summary
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public UserSummaryDto lookup() {
+        long id = ThreadLocalRandom.current().nextLong(1, users + 1);
+        if (index != null) {
+            return index.get(id);
+        }
+        User user = entityMap.get(id);
+        return new UserSummaryDto(user.getId(), user.getName(), user.getEmail());
+    }
+
+    private static Map<Long, User> entityMap(int users) {
+        Map<Long, User> map = new HashMap<>();
+        for (long id = 1; id <= users; id++) {
+            map.put(id, BenchmarkData.user(id, 0));
+        }
+        return map;
+    }
+
+    private static UserSummaryIndex index(int users) {
+        UserSummaryIndex index = new UserSummaryIndex(16); // Без подсказки размера: учитывается запас после роста
+        for (long id = 1; id <= users; id++) {
+            User user = BenchmarkData.user(id, 0);
+            index.putIfNewer(id, 0, user.getName(), user.getEmail());
+        }
+        return index;
+    }
+
+    // Занятая куча после нескольких полных сборок мусора
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,13 @@
+-- Tables without an entity for benchmarks on H2: the change_events outbox of migration V3 without the
+-- PostgreSQL transaction id default (H2 has no pg_current_xact_id). Order rollups are disabled in benchmarks
+create table if not exists change_events (
+    id bigserial primary key,
+    tx_id bigint not null default 0,
+    entity_type varchar(16) not null,
+    entity_id bigint not null,
+    user_id bigint,
+    change_type varchar(8) not null,
+    version bigint,
+    payload text,
+    created_at timestamp with time zone not null default now()
+);
@@ -3,7 +3,15 @@ package itk.academy.orekhov;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication // Аннотация указывает, что это главный класс приложения Spring Boot
+// Аннотация указывает, что это главный класс приложения Spring Boot.
+// С профилем сборки reactive в classpath есть R2DBC: без исключения его ConnectionFactory отключает DataSource
+// и JPA сервлетного приложения (реактивное приложение лежит в пакете itk.academy.reactive и сюда не сканируется)
+@SpringBootApplication(excludeName = {
+        "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration",
+        "org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration",
+        "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration",
+        "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration"
+})
 public class Application {
 
     public static void main(String[] args) {
@@ -11,4 +19,3 @@ public class Application {
         SpringApplication.run(Application.class, args);
     }
 }
-
@@ -0,0 +1,164 @@
+package itk.academy.orekhov.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.event.ChangeType;
+import itk.academy.orekhov.event.EntityChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+
+// Фильтр Блума по email зарегистрированных пользователей: отрицательный ответ ("точно нет") отдается
+// без обращения к базе. Заполняется при старте приложения и пополняется событиями EntityChangedEvent.
+// Удаленные и замененные email остаются в фильтре (ложноположительный ответ безопасен - его проверит база),
+// поэтому фильтр периодически перестраивается с нуля
+@Component
+public class EmailBloomFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private final JdbcTemplate jdbcTemplate; // Отдельный JdbcTemplate с размером порции курсора
+    private final TransactionTemplate transactionTemplate; // Транзакция только для чтения на время прохода
+    private final boolean enabled;
+    private final long expectedInsertions; // Минимальная емкость фильтра
+    private final double falsePositiveRate; // Допустимая доля ложноположительных ответов
+
+    private volatile BloomFilter filter; // null, пока фильтр не заполнен: до этого все ответы "возможно"
+    private BloomFilter building; // Заполняемый фильтр; изменяется под монитором this
+
+    private Counter negatives; // Счетчики создаются в пустом реестре и заменяются при привязке к реестру приложения
+    private Counter positives;
+    private Counter falsePositives;
+
+    public EmailBloomFilter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                            @Value("${app.email-filter.enabled:true}") boolean enabled,
+                            @Value("${app.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${app.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize); // Email читаются курсором, а не всей таблицей сразу
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        bindTo(new CompositeMeterRegistry());
+    }
+
+    // Метрики: app.email.filter.checks{result=negative|positive|false-positive}, app.email.filter.bytes
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        negatives = Counter.builder("app.email.filter.checks").tag("result", "negative")
+                .description("Email checks answered by the bloom filter without a database query").register(registry);
+        positives = Counter.builder("app.email.filter.checks").tag("result", "positive")
+                .description("Email checks passed on to the database").register(registry);
+        falsePositives = Counter.builder("app.email.filter.checks").tag("result", "false-positive")
+                .description("Positive filter answers the database did not confirm").register(registry);
+        Gauge.builder("app.email.filter.bytes", this, f -> f.filter != null ? f.filter.sizeInBytes() : 0)
+                .description("Bloom filter size").baseUnit("bytes").register(registry);
+    }
+
+    // false - пользователя с таким email точно нет; true - нужно проверить в базе
+    public boolean mightContain(String email) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return true; // Фильтр еще не заполнен или отключен
+        }
+        boolean result = current.mightContain(normalize(email));
+        (result ? positives : negatives).increment();
+        return result;
+    }
+
+    // База не подтвердила положительный ответ фильтра
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    // Заполнение при старте: до его окончания запросы идут в базу
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // Периодическая перестройка убирает из фильтра удаленные и замененные email
+    @Scheduled(initialDelayString = "${app.email-filter.rebuild-interval:PT6H}",
+            fixedDelayString = "${app.email-filter.rebuild-interval:PT6H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Long users = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+        // Запас в два раза: фильтр не переполняется до следующей перестройки
+        BloomFilter next = new BloomFilter(Math.max(expectedInsertions, 2 * (users != null ? users : 0)), falsePositiveRate);
+        synchronized (this) {
+            building = next; // С этого момента новые email попадают и в заполняемый фильтр
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query("select email from users", rs -> {
+                String email = rs.getString(1);
+                if (email != null) {
+                    next.put(normalize(email));
+                }
+            }));
+            synchronized (this) {
+                filter = next;
+            }
+            log.info("Email bloom filter built from {} users in {} ms ({} bytes, {} hashes)", users,
+                    (System.nanoTime() - start) / 1_000_000, next.sizeInBytes(), next.hashCount());
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+    }
+
+    // Новый email добавляется сразу при записи в базу (до фиксации), чтобы проверка после создания пользователя
+    // не получила ложный отказ; откат транзакции оставит лишний email - это безопасно
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        add(event);
+    }
+
+    // Повторно после фиксации: перестройка, начавшаяся до фиксации, могла не увидеть строку в базе
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChangeCommitted(EntityChangedEvent event) {
+        add(event);
+    }
+
+    private void add(EntityChangedEvent event) {
+        if (event.entityType() != User.class || event.type() == ChangeType.DELETE || event.email() == null) {
+            return;
+        }
+        String email = normalize(event.email());
+        synchronized (this) {
+            BloomFilter current = filter;
+            if (current != null) {
+                current.put(email);
+            }
+            if (building != null) {
+                building.put(email);
+            }
+        }
+    }
+
+    // Регистр не учитывается: фильтр может лишь чаще говорить "возможно", но никогда не пропустит email
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,49 @@
+package itk.academy.orekhov.cache;
+
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+// JPA-слушатель заказов и пользователей: вставка, изменение или удаление заказа увеличивает версию его пользователя.
+// Слушатель только запоминает id владельца, а версии увеличиваются одним пакетом перед фиксацией (OrderOwnerVersions).
+// Кеш ответов и ETag привязаны к версии пользователя: ответ, который параллельный GET построил из прежних заказов
+// и сохранил уже после сброса кеша, не совпадет с новой версией и не будет отдан
+public class OrderOwnerVersionListener {
+
+    @Autowired
+    @Lazy // Слушатель создается вместе с EntityManagerFactory, поэтому EntityManager разрешается при первом изменении
+    private EntityManager entityManager; // Транзакционный EntityManager: сессия Hibernate, выполняющая flush
+
+    @PostPersist // После INSERT
+    public void afterInsert(Object entity) {
+        written(entity);
+    }
+
+    @PostUpdate // После UPDATE
+    public void afterUpdate(Object entity) {
+        written(entity);
+    }
+
+    @PostRemove // После DELETE
+    public void afterDelete(Object entity) {
+        written(entity);
+    }
+
+    private void written(Object entity) {
+        if (entity instanceof Order order && order.getUser() != null) {
+            versions().orderWritten(order.getUser().getId()); // id прокси не требует загрузки пользователя
+        } else if (entity instanceof User user) {
+            versions().userWritten(user.getId());
+        }
+    }
+
+    private OrderOwnerVersions versions() {
+        return OrderOwnerVersions.current(entityManager.unwrap(SessionImplementor.class));
+    }
+}
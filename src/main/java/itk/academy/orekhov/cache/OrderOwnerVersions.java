@@ -0,0 +1,93 @@
+package itk.academy.orekhov.cache;
+
+import itk.academy.orekhov.entity.User;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Пользователи, заказы которых изменила транзакция. Копятся слушателем OrderOwnerVersionListener во время flush,
+// а перед фиксацией версия каждого увеличивается одним пакетом UPDATE на том же соединении. Пользователи,
+// которых транзакция сама вставила, изменила или удалила через Hibernate, пропускаются: их версию уже записал Hibernate
+final class OrderOwnerVersions implements BeforeTransactionCompletionProcess {
+
+    // version = version + 1 без проверки прежней версии: параллельные записи заказов одного пользователя только
+    // дожидаются блокировки строки, а не завершаются конфликтом версий
+    private static final String INCREMENT_SQL = "update users set version = version + 1 where id = ?";
+
+    private final Set<Long> owners = new TreeSet<>(); // TreeSet: строки блокируются в одном порядке во всех транзакциях
+    private final Set<Long> written = new HashSet<>(); // Пользователи, записанные через Hibernate в этой транзакции
+
+    private OrderOwnerVersions() {
+    }
+
+    // Пользователи текущей транзакции; создаются и регистрируются в сессии Hibernate при первой записи
+    static OrderOwnerVersions current(SessionImplementor session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            OrderOwnerVersions versions = new OrderOwnerVersions(); // Транзакция без синхронизации Spring: запись на каждое изменение
+            session.getActionQueue().registerProcess(versions);
+            return versions;
+        }
+        OrderOwnerVersions versions = (OrderOwnerVersions) TransactionSynchronizationManager.getResource(OrderOwnerVersions.class);
+        if (versions == null) {
+            OrderOwnerVersions created = new OrderOwnerVersions();
+            CacheImplementor cache = session.getFactory().getCache();
+            session.getActionQueue().registerProcess(created);
+            TransactionSynchronizationManager.bindResource(OrderOwnerVersions.class, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderOwnerVersions.class);
+                    created.evict(cache); // После кеша Hibernate: до фиксации чтения могли положить прежнюю версию
+                }
+            });
+            versions = created;
+        }
+        return versions;
+    }
+
+    // Заказ пользователя вставлен, изменен или удален
+    void orderWritten(Long userId) {
+        if (userId != null) {
+            owners.add(userId);
+        }
+    }
+
+    // Сам пользователь вставлен, изменен или удален через Hibernate
+    void userWritten(Long userId) {
+        if (userId != null) {
+            written.add(userId);
+        }
+    }
+
+    @Override
+    public void doBeforeTransactionCompletion(SessionImplementor session) {
+        owners.removeAll(written);
+        if (owners.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INCREMENT_SQL)) {
+                for (Long owner : owners) {
+                    statement.setLong(1, owner);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+        evict(session.getFactory().getCache()); // Версия увеличена в обход Hibernate
+    }
+
+    // Удаляет из второго уровня кеша пользователей, чья версия увеличена
+    private void evict(CacheImplementor cache) {
+        for (Long owner : owners) {
+            cache.evictEntityData(User.class, owner);
+        }
+    }
+}
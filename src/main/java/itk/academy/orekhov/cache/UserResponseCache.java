@@ -0,0 +1,105 @@
+package itk.academy.orekhov.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import itk.academy.orekhov.event.EntityChangedEvent;
+import itk.academy.orekhov.view.Views;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.Objects;
+
+// Кеш готовых JSON-ответов по пользователю: байты ответа для пары (id пользователя, представление)
+// вместе с версией сущности, из которой они построены, и ETag.
+// Запись сбрасывается после фиксации любого изменения пользователя или его заказов; изменение заказа к тому же
+// увеличивает версию пользователя перед фиксацией (OrderOwnerVersionListener), поэтому запоздалая запись из прежних
+// заказов не совпадет
+@Component
+public class UserResponseCache implements MeterBinder {
+
+    private static final Class<?>[] VIEWS = Views.class.getDeclaredClasses(); // Все представления, под которые кешируются ответы
+
+    private final Cache<Key, CachedResponse> cache;
+
+    public UserResponseCache(@Value("${app.response-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${app.response-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize) // Ограничение по количеству ответов
+                .expireAfterWrite(expireAfterWrite) // Страховка от событий, прошедших мимо JPA (например, ручной SQL)
+                .recordStats() // Попадания, промахи и вытеснения для метрик cache.*
+                .build();
+    }
+
+    // Метрики кеша (cache.gets, cache.evictions, cache.size) с тегом cache=userResponses
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "userResponses");
+    }
+
+    // Готовый ответ для версии пользователя или null, если ответа нет либо он построен из другой версии
+    public CachedResponse get(Long userId, Class<?> view, Long version) {
+        CachedResponse response = cache.getIfPresent(new Key(userId, view));
+        return response != null && Objects.equals(response.version(), version) ? response : null;
+    }
+
+    // Сохраняет байты ответа, построенные из указанной версии пользователя
+    public CachedResponse put(Long userId, Class<?> view, Long version, byte[] body) {
+        CachedResponse response = new CachedResponse(version, body, etag(version, body));
+        cache.put(new Key(userId, view), response);
+        return response;
+    }
+
+    // Удаляет ответы пользователя во всех представлениях
+    public void evict(Long userId) {
+        for (Class<?> view : VIEWS) {
+            cache.invalidate(new Key(userId, view));
+        }
+    }
+
+    // Изменение пользователя или любого его заказа делает ответы пользователя неактуальными.
+    // Сброс после фиксации: до нее параллельные запросы еще видят старые данные и могли бы снова закешировать их
+    @TransactionalEventListener(fallbackExecution = true) // Без транзакции событие обрабатывается сразу
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.userId() != null) {
+            evict(event.userId());
+        }
+    }
+
+    // Сильный ETag: версия пользователя (растет и при изменении заказов) и хеш содержимого
+    private static String etag(Long version, byte[] body) {
+        return "\"v" + version + "-" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    // ETag ответа на изменение (PUT, PATCH): только версия пользователя после изменения. Его можно сразу передать
+    // в If-Match следующего изменения; для If-None-Match GET он не совпадет с ETag готового ответа, и GET вернет тело
+    public static String etag(Long version) {
+        return "\"v" + version + "\"";
+    }
+
+    // Версия пользователя из ETag, выданного этим сервисом ("v<версия>-<хеш>" или "v<версия>"), или null для чужого
+    // или слабого (W/) ETag. По ней PUT и PATCH проверяют If-Match
+    public static Long versionOf(String etag) {
+        if (etag == null || etag.length() < 4 || !etag.startsWith("\"v") || !etag.endsWith("\"")) {
+            return null;
+        }
+        int end = etag.indexOf('-') >= 0 ? etag.indexOf('-') : etag.length() - 1;
+        try {
+            return Long.parseLong(etag.substring(2, end));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    // Готовый ответ: версия сущности, байты JSON и ETag
+    public record CachedResponse(Long version, byte[] body, String etag) {
+    }
+
+    private record Key(Long userId, Class<?> view) {
+    }
+}
@@ -0,0 +1,37 @@
+package itk.academy.orekhov.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import itk.academy.orekhov.dto.UserDetailsDto;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.json.JsonViewWriters;
+import itk.academy.orekhov.json.PrecompiledViewHttpMessageConverter;
+import itk.academy.orekhov.metrics.SerializationMetrics;
+import itk.academy.orekhov.view.Views;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Configuration // Конфигурация сериализации ответов с @JsonView
+public class JsonViewConfig {
+
+    // Writer для всех пар (сущность, представление) строятся при старте приложения
+    @Bean
+    public JsonViewWriters jsonViewWriters(ObjectMapper objectMapper) {
+        List<Class<?>> views = Arrays.asList(Views.class.getDeclaredClasses()); // Все представления из Views
+        List<Class<?>> types = List.of(User.class, Order.class, UserSummaryDto.class, UserDetailsDto.class); // Типы, которые отдают контроллеры
+        return new JsonViewWriters(objectMapper, views, types);
+    }
+
+    // Заменяет стандартный конвертер Spring Boot (он создается только при отсутствии такого бина)
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   JsonViewWriters jsonViewWriters,
+                                                                                   SerializationMetrics serializationMetrics) {
+        return new PrecompiledViewHttpMessageConverter(objectMapper, jsonViewWriters, serializationMetrics);
+    }
+}
@@ -0,0 +1,46 @@
+package itk.academy.orekhov.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import itk.academy.orekhov.metrics.QueryCountInterceptor;
+import itk.academy.orekhov.metrics.SerializationMetrics;
+import itk.academy.orekhov.metrics.SqlBudgetGuard;
+import itk.academy.orekhov.metrics.SqlBudgetInterceptor;
+import itk.academy.orekhov.metrics.SqlBudgetProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration // Метрики приложения сверх стандартных (http.server.requests, spring.data.repository.invocations, hikaricp.*)
+@EnableConfigurationProperties(SqlBudgetProperties.class)
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final SqlBudgetGuard sqlBudgetGuard; // Общий для перехватчика и SqlBudgetAdvice
+
+    public MetricsConfig(MeterRegistry meterRegistry, SqlBudgetProperties sqlBudgetProperties) {
+        this.meterRegistry = meterRegistry;
+        this.sqlBudgetGuard = new SqlBudgetGuard(sqlBudgetProperties);
+    }
+
+    // Время и объем сериализации JSON по представлениям
+    @Bean
+    public SerializationMetrics serializationMetrics() {
+        return new SerializationMetrics(meterRegistry);
+    }
+
+    // Проверка бюджета SQL-запросов на HTTP-запрос
+    @Bean
+    public SqlBudgetGuard sqlBudgetGuard() {
+        return sqlBudgetGuard;
+    }
+
+    // Количество SQL-запросов на HTTP-запрос для API и проверка бюджета.
+    // Порядок важен: QueryCountInterceptor начинает подсчет первым и завершает его последним
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryCountInterceptor(meterRegistry)).addPathPatterns("/api/**");
+        registry.addInterceptor(new SqlBudgetInterceptor(sqlBudgetGuard)).addPathPatterns("/api/**");
+    }
+}
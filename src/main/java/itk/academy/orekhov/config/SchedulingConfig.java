@@ -0,0 +1,9 @@
+package itk.academy.orekhov.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration // Включает выполнение методов @Scheduled (периодическая перестройка фильтра email)
+@EnableScheduling
+public class SchedulingConfig {
+}
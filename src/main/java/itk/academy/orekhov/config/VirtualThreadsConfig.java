@@ -0,0 +1,26 @@
+package itk.academy.orekhov.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+@Configuration // Режим виртуальных потоков (профиль virtual-threads)
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    // Spring Boot молча игнорирует spring.threads.virtual.enabled на Java ниже 21, поэтому предупреждаем явно
+    public VirtualThreadsConfig(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Virtual threads enabled for Tomcat, task executor and scheduler");
+        } else {
+            log.warn("Profile virtual-threads is active, but virtual threads are not available on Java {}: "
+                    + "requests run on platform threads", JavaVersion.getJavaVersion());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package itk.academy.orekhov.controller;
+
+import itk.academy.orekhov.dto.CacheRegionStats;
+import itk.academy.orekhov.service.CacheStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache") // URL для диагностики кеша
+class CacheStatsController {
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService; // Сервис статистики кеша второго уровня
+
+    // Получить статистику попаданий, промахов и вытеснений по регионам кеша
+    @GetMapping("/stats")
+    public List<CacheRegionStats> getCacheStats() {
+        return cacheStatisticsService.getRegionStats();
+    }
+}
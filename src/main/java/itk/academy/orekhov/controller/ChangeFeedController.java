@@ -0,0 +1,70 @@
+package itk.academy.orekhov.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import itk.academy.orekhov.dto.ChangeEventDto;
+import itk.academy.orekhov.event.ChangeCursor;
+import itk.academy.orekhov.service.ChangeFeedService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping("/api/changes") // Лента изменений пользователей и заказов
+@Validated
+class ChangeFeedController {
+
+    @Autowired
+    private ChangeFeedService changeFeedService; // Чтение outbox изменений
+
+    @Autowired
+    private ObjectMapper objectMapper; // Настроенный Spring ObjectMapper для потоковой записи
+
+    private static final int STREAM_FLUSH_EVERY = 500; // Как часто сбрасывать буфер при потоковой выдаче
+
+    // Изменения после курсора since в порядке фиксации транзакций, по одному JSON-объекту на строку (NDJSON).
+    // Каждая строка содержит свой курсор: потребитель сохраняет курсор последней обработанной строки
+    // и продолжает с него; пустой ответ означает, что новых изменений пока нет.
+    // DELETE пользователя означает и удаление всех его заказов: для них отдельных строк нет
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getChanges(@RequestParam(required = false) String since,
+                                                            @RequestParam(defaultValue = "1000") @Min(1) @Max(10000) int limit) {
+        ChangeCursor after = ChangeCursor.decode(since); // Неверный курсор - 400 до начала потоковой выдачи
+        ObjectWriter writer = objectMapper.writerFor(ChangeEventDto.class)
+                .without(SerializationFeature.INDENT_OUTPUT) // Запись обязана помещаться в одну строку
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) { // Потоком ответа управляет Spring MVC
+                long[] written = {0};
+                changeFeedService.forEachChange(after, limit, change -> {
+                    try {
+                        writer.writeValue(generator, change);
+                        generator.writeRaw('\n');
+                        if (++written[0] % STREAM_FLUSH_EVERY == 0) {
+                            generator.flush(); // Клиент получает изменения, не дожидаясь конца выборки
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause(); // Клиент оборвал соединение
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -1,5 +1,11 @@
 package itk.academy.orekhov.controller;
 
+import itk.academy.orekhov.metrics.SqlBudgetExceededException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -8,9 +14,13 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Locale;
+
 @ControllerAdvice // Аннотация указывает, что этот класс содержит глобальные обработчики исключений
 class GlobalExceptionHandler {
 
+    private static final String EMAIL_UNIQUE_INDEX = "ux_users_email"; // Уникальный индекс email из миграции V2
+
     // Обработка исключений ResponseStatusException
     @ExceptionHandler(ResponseStatusException.class) // Указывает, какой тип исключений перехватывается
     @ResponseBody // Указывает, что возвращаемый результат будет телом HTTP-ответа
@@ -31,4 +41,46 @@ class GlobalExceptionHandler {
         // Возвращает ответ с сообщением об ошибке и статусом BAD_REQUEST (400)
         return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
     }
+
+    // Обработка нарушений ограничений параметров запроса (например, @Min/@Max у limit)
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleConstraintViolationException(ConstraintViolationException ex) {
+        // Формирует сообщение из первого нарушения в формате "параметр: ошибка"
+        String errorMessage = ex.getConstraintViolations().stream()
+                .map(violation -> parameterName(violation) + ": " + violation.getMessage())
+                .findFirst()
+                .orElse("Validation error");
+        return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
+    }
+
+    // Нарушение ограничений базы данных (уникальный email, внешний ключ) - конфликт с существующими данными.
+    // Текст SQL-ошибки клиенту не отдается
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        String cause = String.valueOf(NestedExceptionUtils.getMostSpecificCause(ex).getMessage()).toLowerCase(Locale.ROOT);
+        String errorMessage = cause.contains(EMAIL_UNIQUE_INDEX) ? "email: already registered" : "Data integrity violation";
+        return new ResponseEntity<>(errorMessage, HttpStatus.CONFLICT);
+    }
+
+    // Оптимистическая блокировка: строку изменили между чтением и записью, а повторы исчерпаны или невозможны
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>("Concurrent modification, retry the request", HttpStatus.CONFLICT);
+    }
+
+    // Превышение бюджета SQL-запросов (режим app.sql-budget.mode=FAIL)
+    @ExceptionHandler(SqlBudgetExceededException.class)
+    @ResponseBody
+    public ResponseEntity<String> handleSqlBudgetExceededException(SqlBudgetExceededException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Последний узел пути нарушения - имя параметра метода (путь вида "getAllUsers.limit")
+    private static String parameterName(ConstraintViolation<?> violation) {
+        String path = violation.getPropertyPath().toString();
+        return path.substring(path.lastIndexOf('.') + 1);
+    }
 }
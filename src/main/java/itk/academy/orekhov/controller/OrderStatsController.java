@@ -0,0 +1,22 @@
+package itk.academy.orekhov.controller;
+
+import itk.academy.orekhov.dto.OrderStatsDto;
+import itk.academy.orekhov.service.OrderStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/orders") // Сводки по всем заказам
+class OrderStatsController {
+
+    @Autowired
+    private OrderStatsService orderStatsService; // Чтение таблиц сводок
+
+    // Количество и сумма всех заказов с разбивкой по статусам (из order_status_stats, без сканирования orders)
+    @GetMapping("/stats")
+    public OrderStatsDto getStats() {
+        return orderStatsService.getStats();
+    }
+}
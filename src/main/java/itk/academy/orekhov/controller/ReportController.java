@@ -0,0 +1,28 @@
+package itk.academy.orekhov.controller;
+
+import itk.academy.orekhov.dto.OrderReportDto;
+import itk.academy.orekhov.service.OrderReportService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/reports") // Отчеты по всем пользователям и заказам
+@Validated
+class ReportController {
+
+    @Autowired
+    private OrderReportService orderReportService; // Параллельное построение отчетов по диапазонам id
+
+    // Отчет по заказам: итоги, распределение по статусам и top крупнейших покупателей.
+    // Читает все заказы, поэтому предназначен для разовых отчетов; дашборды используют сводки /api/orders/stats
+    @GetMapping("/orders")
+    public OrderReportDto getOrderReport(@RequestParam(defaultValue = "10") @Min(0) @Max(1000) int top) {
+        return orderReportService.buildReport(top);
+    }
+}
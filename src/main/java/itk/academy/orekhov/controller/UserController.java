@@ -1,17 +1,66 @@
 package itk.academy.orekhov.controller;
 
 import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import itk.academy.orekhov.cache.UserResponseCache;
+import itk.academy.orekhov.dto.BatchItemResult;
+import itk.academy.orekhov.dto.ImportReport;
+import itk.academy.orekhov.dto.OrderStatsDto;
+import itk.academy.orekhov.dto.UserDetailsDto;
+import itk.academy.orekhov.dto.UserDto;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.dto.VersionedUserSummaryDto;
+import itk.academy.orekhov.entity.Order;
 import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.export.CsvUserExportWriter;
+import itk.academy.orekhov.export.ExportFormat;
+import itk.academy.orekhov.export.NdjsonUserExportWriter;
+import itk.academy.orekhov.export.UserExportWriter;
+import itk.academy.orekhov.json.JsonViewWriters;
+import itk.academy.orekhov.metrics.SerializationMetrics;
+import itk.academy.orekhov.pagination.KeysetCursor;
+import itk.academy.orekhov.repository.OrderRepository;
+import itk.academy.orekhov.repository.OrderSpecifications;
 import itk.academy.orekhov.repository.UserRepository;
+import itk.academy.orekhov.service.OrderStatsService;
+import itk.academy.orekhov.service.UserBatchService;
+import itk.academy.orekhov.service.UserDetailsService;
+import itk.academy.orekhov.service.UserExportService;
+import itk.academy.orekhov.service.UserImportService;
+import itk.academy.orekhov.service.UserService;
 import itk.academy.orekhov.view.Views;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController //автоматически возвращают данные, а не представления. Объединяет две аннотации: @Controller и @ResponseBody.
 @RequestMapping("/api/users") // Основной URL для работы с пользователями
@@ -21,20 +70,230 @@ class UserController {
     @Autowired // используется для автоматической инъекции зависимостей в классы
     private UserRepository userRepository; // Инъекция репозитория для работы с данными пользователя
 
-    // Получить всех пользователей (используется представление UserSummary)
+    @Autowired
+    private OrderRepository orderRepository; // Репозиторий заказов для постраничного ресурса заказов
+
+    @Autowired
+    private UserService userService; // Сервис для потоковой выдачи пользователей
+
+    @Autowired
+    private UserDetailsService userDetailsService; // Сборка представления UserDetails с ограниченными заказами
+
+    @Autowired
+    private UserBatchService userBatchService; // Сервис пакетных операций
+
+    @Autowired
+    private UserImportService userImportService; // Сервис импорта из NDJSON
+
+    @Autowired
+    private UserExportService userExportService; // Сервис выгрузки пользователей с заказами
+
+    @Autowired
+    private ObjectMapper objectMapper; // Настроенный Spring ObjectMapper для ручной потоковой сериализации
+
+    @Autowired
+    private JsonViewWriters jsonViewWriters; // Заранее построенные writer для представлений
+
+    @Autowired
+    private UserResponseCache userResponseCache; // Кеш готовых JSON-ответов по пользователю
+
+    @Autowired
+    private OrderStatsService orderStatsService; // Сводки заказов из таблиц сводок
+
+    @Autowired
+    private SerializationMetrics serializationMetrics; // Метрики сериализации, которую контроллер выполняет сам
+
+    static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json"; // Тип тела JSON Merge Patch
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor"; // Заголовок с курсором следующей страницы
+    private static final int STREAM_FLUSH_EVERY = 500; // Как часто сбрасывать буфер при потоковой выдаче
+    private static final int MAX_BATCH_ITEMS = 5000; // Максимальное количество элементов в пакетном запросе
+
+    // Получить страницу пользователей (используется представление UserSummary)
+    // Keyset-пагинация по id: курсор следующей страницы возвращается в заголовках X-Next-Cursor и Link
     @GetMapping //указывает, что метод будет обрабатывать HTTP GET-запросы
     @JsonView(Views.UserSummary.class) //используется для указания, какое представление (view) будет использовано при сериализации объекта в JSON
-    public List<User> getAllUsers() {
-        return userRepository.findAll(); // Возвращаем список всех пользователей
+    public ResponseEntity<List<UserSummaryDto>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        long after = KeysetCursor.decode(cursor); // id последней записи предыдущей страницы
+        // Проекция читает только id, name и email, без гидрации сущностей
+        List<UserSummaryDto> users = userRepository.findSummariesAfter(after, Limit.of(limit));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == limit) { // Полная страница - возможно, есть следующая
+            String next = KeysetCursor.encode(users.get(users.size() - 1).id());
+            String link = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", next)
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, next)
+                    .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return response.body(users); // Возвращаем страницу пользователей
+    }
+
+    // Получить всех пользователей потоком (?stream=true): строки пишутся в ответ по мере чтения из JDBC-курсора,
+    // поэтому потребление памяти не зависит от размера таблицы
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        ObjectWriter writer = jsonViewWriters.writerFor(UserSummaryDto.class, Views.UserSummary.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE); // Сбрасываем буфер порциями, а не после каждой строки
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) { // Потоком ответа управляет Spring MVC
+                generator.writeStartArray();
+                int[] written = {0};
+                userService.forEachUserSummary(user -> {
+                    try {
+                        writer.writeValue(generator, user); // Пишем пользователя в представлении UserSummary
+                        if (++written[0] % STREAM_FLUSH_EVERY == 0) {
+                            generator.flush(); // Периодически отдаем накопленные данные клиенту
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Получить пользователя по ID в представлении UserSummary (без заказов). При app.read-model.type=memory
+    // ответ берется из модели чтения в памяти без обращения к Hibernate и базе
+    @GetMapping("/{id}/summary")
+    @JsonView(Views.UserSummary.class)
+    public UserSummaryDto getUserSummary(@PathVariable Long id) {
+        return userService.findSummaryById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
+    // Количество и сумма заказов пользователя с разбивкой по статусам. Читается из сводки user_order_stats,
+    // которая обновляется вместе с заказами, а не суммированием заказов при каждом запросе
+    @GetMapping("/{id}/orders/stats")
+    public OrderStatsDto getUserOrderStats(@PathVariable Long id) {
+        OrderStatsDto stats = orderStatsService.getUserStats(id);
+        if (stats.orderCount() == 0 && !userRepository.existsById(id)) { // Пользователя проверяем, только если заказов нет
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        return stats;
+    }
+
+    // Найти пользователя по email (представление UserSummary). Незарегистрированные email в большинстве случаев
+    // отсекаются фильтром Блума без запроса к базе
+    @GetMapping("/by-email")
+    @JsonView(Views.UserSummary.class)
+    public UserSummaryDto getUserByEmail(@RequestParam @NotBlank @Email String email) {
+        return userService.findSummaryByEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
+    // Проверить, зарегистрирован ли email: 200 или 404 без тела (перед созданием пользователя)
+    @RequestMapping(value = "/by-email", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> checkEmail(@RequestParam @NotBlank @Email String email) {
+        return userService.existsByEmail(email) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    // Выгрузить всех пользователей с заказами (форма UserDetails) в NDJSON или CSV.
+    // Ответ пишется по мере чтения курсора; after - id последнего полученного пользователя для продолжения выгрузки.
+    // Если клиент принимает gzip, ответ сжимается
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "0") @Min(0) long after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            userExportService.exportUsers(after, exportWriter(exportFormat, target));
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish(); // Дописываем окончание gzip; сам поток ответа закроет Spring MVC
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + exportFormat.extension()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    private UserExportWriter exportWriter(ExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonUserExportWriter(out, objectMapper,
+                    jsonViewWriters.writerFor(User.class, Views.UserDetails.class));
+            case CSV -> new CsvUserExportWriter(out);
+        };
     }
 
-    // Получить пользователя по ID (используется представление UserDetails)
+    // Получить пользователя по ID (используется представление UserDetails с первыми заказами и ссылкой на остальные)
+    // Ответ отдается готовыми байтами из кеша ответов, если версия пользователя не изменилась;
+    // заголовок ETag позволяет клиенту получить 304 Not Modified через If-None-Match
     @GetMapping("/{id}")
-    @JsonView(Views.UserDetails.class)
-    public User getUserById(@PathVariable Long id) {
-        // Ищем пользователя по ID, если не найден, выбрасываем исключение
-        return userRepository.findById(id)
+    public ResponseEntity<byte[]> getUserById(@PathVariable Long id) throws IOException {
+        // Ищем пользователя по ID (обычно из второго уровня кеша), если не найден, выбрасываем исключение
+        User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        UserResponseCache.CachedResponse response =
+                userResponseCache.get(id, Views.UserDetails.class, user.getVersion());
+        if (response == null) { // Ответа нет или он построен из другой версии - сериализуем заново
+            UserDetailsDto details = userDetailsService.details(user); // Первые заказы одним запросом с LIMIT
+            long start = System.nanoTime();
+            byte[] body = jsonViewWriters.writerFor(UserDetailsDto.class, Views.UserDetails.class).writeValueAsBytes(details);
+            serializationMetrics.record(Views.UserDetails.class, "response-cache", HttpStatus.OK.value(),
+                    System.nanoTime() - start, body.length);
+            response = userResponseCache.put(id, Views.UserDetails.class, user.getVersion(), body);
+        }
+        // Для GET с совпадающим If-None-Match Spring MVC сам вернет 304 без тела
+        return ResponseEntity.ok()
+                .eTag(response.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.body());
+    }
+
+    // Получить заказы пользователя постранично (keyset по id заказа) с фильтрами по статусу и диапазону суммы.
+    // Курсор следующей страницы возвращается в заголовках X-Next-Cursor и Link
+    @GetMapping("/{id}/orders")
+    @JsonView(Views.UserDetails.class)
+    public ResponseEntity<List<Order>> getUserOrders(@PathVariable Long id,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit,
+                                                     @RequestParam(required = false) String status,
+                                                     @RequestParam(required = false) Double minAmount,
+                                                     @RequestParam(required = false) Double maxAmount) {
+        if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minAmount must not be greater than maxAmount");
+        }
+        long after = KeysetCursor.decode(cursor); // id последнего заказа предыдущей страницы
+        List<Order> orders = orderRepository.findBy(
+                OrderSpecifications.userOrdersAfter(id, after, status, minAmount, maxAmount),
+                query -> query.sortBy(Sort.by("id")).limit(limit).all());
+        if (orders.isEmpty() && !userRepository.existsById(id)) { // Существование проверяется только для пустой страницы
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orders.size() == limit) { // Полная страница - возможно, есть следующая
+            String next = KeysetCursor.encode(orders.get(orders.size() - 1).getId());
+            String link = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", next)
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, next)
+                    .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return response.body(orders);
+    }
+
+    // Получить нескольких пользователей с первыми заказами (представление UserDetails) двумя запросами
+    @GetMapping("/details")
+    @JsonView(Views.UserDetails.class)
+    public List<UserDetailsDto> getUsersDetails(@RequestParam @Size(min = 1, max = 100) List<Long> ids) {
+        return userDetailsService.details(ids); // Отсутствующие id просто не попадают в ответ
     }
 
     // Создать нового пользователя
@@ -44,26 +303,75 @@ class UserController {
         return userRepository.save(user); // Сохраняем нового пользователя в базе данных
     }
 
-    // Обновить информацию о пользователе
+    // Создать пользователей пакетом; результат возвращается по каждому элементу массива
+    @PostMapping("/batch")
+    public List<BatchItemResult> createUsers(@RequestBody @Size(min = 1, max = MAX_BATCH_ITEMS) List<UserDto> users) {
+        return userBatchService.createUsers(users);
+    }
+
+    // Импортировать пользователей с заказами из NDJSON: тело читается потоком, строки пишутся порциями,
+    // отклоненные строки перечисляются в отчете
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importUsers(InputStream body) throws IOException {
+        return userImportService.importUsers(body);
+    }
+
+    // Обновить имя и email нескольких пользователей (id обязателен в каждом элементе)
+    @PutMapping("/batch")
+    public List<BatchItemResult> updateUsers(@RequestBody @Size(min = 1, max = MAX_BATCH_ITEMS) List<UserDto> users) {
+        return userBatchService.updateUsers(users);
+    }
+
+    // Удалить нескольких пользователей по списку id
+    @DeleteMapping("/batch")
+    public List<BatchItemResult> deleteUsers(@RequestBody @Size(min = 1, max = MAX_BATCH_ITEMS) List<Long> ids) {
+        return userBatchService.deleteUsers(ids);
+    }
+
+    // Обновить информацию о пользователе. С заголовком If-Match (ETag из GET /api/users/{id}) обновление выполняется,
+    // только если пользователь не менялся с момента чтения, иначе 412 Precondition Failed.
+    // Без If-Match конфликт с параллельным обновлением повторяется на сервере, а при исчерпании попыток - 409 Conflict.
+    // ETag ответа построен из новой версии и годится для If-Match следующего изменения
     @PutMapping("/{id}")
-    public User updateUser(@PathVariable Long id, @Valid @RequestBody User updatedUser) {
-        // Ищем пользователя по ID, если не найден, выбрасываем исключение
-        return userRepository.findById(id).map(user -> {
-            user.setName(updatedUser.getName()); // Обновляем имя
-            user.setEmail(updatedUser.getEmail()); // Обновляем email
-            return userRepository.save(user); // Сохраняем обновленные данные
-        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    public ResponseEntity<User> updateUser(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           @Valid @RequestBody User updatedUser) {
+        User user = userService.updateUser(id, updatedUser, expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(UserResponseCache.etag(user.getVersion())).body(user);
     }
 
-    // Удалить пользователя по ID
+    // Частично обновить пользователя (JSON Merge Patch, RFC 7396): меняются и проверяются только переданные поля
+    // name и email, одним UPDATE без загрузки пользователя и заказов. If-Match и ETag ответа работают так же, как у PUT
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @JsonView(Views.UserSummary.class)
+    public ResponseEntity<UserSummaryDto> patchUser(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    @RequestBody Map<String, Object> patch) {
+        VersionedUserSummaryDto user = userService.patchUser(id, patch, expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(UserResponseCache.etag(user.version()))
+                .body(new UserSummaryDto(user.id(), user.name(), user.email()));
+    }
+
+    // Версии пользователя из If-Match; null - условия нет ("*" для существующего пользователя всегда выполнено).
+    // ETag, выданные не этим сервисом, не совпадают ни с одной версией
+    private static List<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String etag : ifMatch.split(",")) {
+            Long version = UserResponseCache.versionOf(etag.trim());
+            if (version != null) {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+
+    // Удалить пользователя по ID вместе с заказами одним DELETE; 404, если удалять нечего
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT) // Статус ответа - NO_CONTENT (204), так как ответ пустой
     public void deleteUser(@PathVariable Long id) {
-        // Проверяем, существует ли пользователь с таким ID, и если существует, удаляем его
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id); // Удаляем пользователя
-        } else {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"); // Если не найден, выбрасываем исключение
-        }
+        userService.deleteUser(id);
     }
 }
@@ -0,0 +1,19 @@
+package itk.academy.orekhov.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Результат обработки одного элемента пакетного запроса: позиция в массиве, id пользователя,
+// HTTP-статус элемента и текст ошибки (только для неуспешных элементов)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(int index, Long id, int status, String error) {
+
+    // Успешно обработанный элемент
+    public static BatchItemResult success(int index, Long id, int status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    // Элемент, который не был обработан
+    public static BatchItemResult failure(int index, Long id, int status, String error) {
+        return new BatchItemResult(index, id, status, error);
+    }
+}
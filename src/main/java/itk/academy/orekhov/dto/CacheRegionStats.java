@@ -0,0 +1,12 @@
+package itk.academy.orekhov.dto;
+
+// Статистика одного региона кеша второго уровня
+public record CacheRegionStats(
+        String region, // Имя региона (класс сущности, роль коллекции или регион кеша запросов)
+        long hits, // Попадания в кеш
+        long misses, // Промахи (данные читались из базы)
+        long puts, // Записи в кеш
+        long evictions, // Вытеснения по размеру или по времени жизни
+        long size // Текущее количество записей
+) {
+}
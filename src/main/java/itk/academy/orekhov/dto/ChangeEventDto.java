@@ -0,0 +1,19 @@
+package itk.academy.orekhov.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import itk.academy.orekhov.event.ChangeType;
+
+import java.time.Instant;
+
+// Строка ленты изменений GET /api/changes
+public record ChangeEventDto(
+        String cursor, // Курсор для продолжения ленты после этого изменения
+        String entity, // Тип сущности: User или Order
+        Long id, // Идентификатор измененной сущности
+        Long userId, // Пользователь, к которому относится изменение
+        ChangeType type, // INSERT, UPDATE или DELETE
+        Long version, // Версия сущности после изменения
+        Instant changedAt, // Время записи изменения
+        @JsonRawValue String data // Состояние сущности после изменения (JSON), null для DELETE
+) {
+}
@@ -0,0 +1,12 @@
+package itk.academy.orekhov.dto;
+
+import java.util.List;
+
+// Итог импорта: количество записанных и отклоненных строк и первые отклоненные строки с причинами.
+// Список отклонений ограничен по размеру, rejectsTruncated показывает, что в него попали не все строки
+public record ImportReport(long imported, long rejected, List<Reject> rejects, boolean rejectsTruncated) {
+
+    // Отклоненная строка входного потока (нумерация с 1) и причина
+    public record Reject(long line, String error) {
+    }
+}
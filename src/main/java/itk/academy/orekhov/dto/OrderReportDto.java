@@ -0,0 +1,17 @@
+package itk.academy.orekhov.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Отчет по всем пользователям и заказам (GET /api/reports/orders)
+public record OrderReportDto(
+        long userCount, // Количество пользователей
+        long orderCount, // Количество заказов
+        BigDecimal totalAmount, // Сумма заказов
+        List<OrderStatusStatsDto> byStatus, // Распределение заказов по статусам
+        List<SpenderDto> topSpenders, // Пользователи с наибольшей суммой заказов по убыванию
+        int ranges, // Диапазонов id, прочитанных параллельно
+        int parallelism, // Потоков пула, строивших отчет
+        long elapsedMs // Время построения отчета
+) {
+}
@@ -0,0 +1,15 @@
+package itk.academy.orekhov.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Сводка заказов пользователя (GET /api/users/{id}/orders/stats) или всех заказов (GET /api/orders/stats)
+public record OrderStatsDto(
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long userId, // Пользователь; отсутствует в общей сводке
+        long orderCount, // Количество заказов
+        BigDecimal totalAmount, // Сумма заказов
+        List<OrderStatusStatsDto> byStatus // Разбивка по статусам
+) {
+}
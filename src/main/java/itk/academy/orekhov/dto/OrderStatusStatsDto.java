@@ -0,0 +1,11 @@
+package itk.academy.orekhov.dto;
+
+import java.math.BigDecimal;
+
+// Количество и сумма заказов в одном статусе
+public record OrderStatusStatsDto(
+        String status, // Статус заказа (null - заказы без статуса)
+        long orderCount, // Количество заказов
+        BigDecimal totalAmount // Сумма заказов
+) {
+}
@@ -0,0 +1,13 @@
+package itk.academy.orekhov.dto;
+
+import java.math.BigDecimal;
+
+// Пользователь в списке крупнейших покупателей отчета
+public record SpenderDto(
+        long userId, // Идентификатор пользователя
+        String name, // Имя пользователя
+        String email, // Email пользователя
+        long orderCount, // Количество заказов
+        BigDecimal totalAmount // Сумма заказов
+) {
+}
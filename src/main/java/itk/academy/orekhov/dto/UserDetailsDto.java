@@ -0,0 +1,40 @@
+package itk.academy.orekhov.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonView;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.pagination.KeysetCursor;
+import itk.academy.orekhov.view.Views;
+
+import java.util.List;
+
+// Пользователь в представлении UserDetails с ограниченным числом встроенных заказов.
+// Все заказы доступны постранично по ordersHref; ordersNext - следующая страница после встроенных
+// (только если встроены не все заказы)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserDetailsDto(
+        @JsonView(Views.UserSummary.class) Long id, // Уникальный идентификатор пользователя
+        @JsonView(Views.UserSummary.class) String name, // Имя пользователя
+        @JsonView(Views.UserSummary.class) String email, // Электронная почта пользователя
+        @JsonView(Views.UserDetails.class) List<Order> orders, // Первые заказы пользователя по id
+        @JsonView(Views.UserDetails.class) String ordersHref, // Постраничный ресурс заказов пользователя
+        @JsonView(Views.UserDetails.class) String ordersNext // Страница заказов после встроенных
+) {
+
+    // Детали из первых заказов пользователя по id. Заказов передается на один больше встраиваемых (maxOrders + 1),
+    // чтобы без отдельного подсчета узнать, есть ли продолжение
+    public static UserDetailsDto capped(Long id, String name, String email, List<Order> orders, int maxOrders) {
+        String href = ordersHref(id);
+        if (orders.size() <= maxOrders) {
+            return new UserDetailsDto(id, name, email, orders, href, null);
+        }
+        List<Order> embedded = List.copyOf(orders.subList(0, maxOrders));
+        String next = href + "?cursor=" + KeysetCursor.encode(embedded.get(maxOrders - 1).getId());
+        return new UserDetailsDto(id, name, email, embedded, href, next);
+    }
+
+    // Ссылка на постраничный ресурс заказов пользователя (относительная: готовый ответ кешируется)
+    public static String ordersHref(long userId) {
+        return "/api/users/" + userId + "/orders";
+    }
+}
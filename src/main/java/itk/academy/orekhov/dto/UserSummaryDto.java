@@ -0,0 +1,13 @@
+package itk.academy.orekhov.dto;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import itk.academy.orekhov.view.Views;
+
+// Проекция пользователя для представления UserSummary: заполняется прямо из SELECT id, name, email,
+// не является управляемой сущностью и не создает прокси коллекции заказов и снимков для dirty-checking
+public record UserSummaryDto(
+        @JsonView(Views.UserSummary.class) Long id, // Уникальный идентификатор пользователя
+        @JsonView(Views.UserSummary.class) String name, // Имя пользователя
+        @JsonView(Views.UserSummary.class) String email // Электронная почта пользователя
+) {
+}
@@ -0,0 +1,11 @@
+package itk.academy.orekhov.dto;
+
+// Проекция UserSummary вместе с версией строки: по версии модель чтения в памяти отбрасывает
+// события, пришедшие позже загрузки, но описывающие более старое состояние пользователя
+public record VersionedUserSummaryDto(
+        Long id, // Уникальный идентификатор пользователя
+        String name, // Имя пользователя
+        String email, // Электронная почта пользователя
+        Long version // Версия строки (@Version)
+) {
+}
@@ -1,17 +1,32 @@
 package itk.academy.orekhov.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import itk.academy.orekhov.cache.OrderOwnerVersionListener;
+import itk.academy.orekhov.event.ChangeOutboxListener;
+import itk.academy.orekhov.event.EntityChangePublisher;
+import itk.academy.orekhov.rollup.OrderRollupListener;
+import itk.academy.orekhov.rollup.OrderRollupState;
 import itk.academy.orekhov.view.Views;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 @Entity // Аннотация для указания, что данный класс является сущностью JPA (будет отображен в таблице базы данных)
-@Table(name = "orders") // Указывает имя таблицы в базе данных для сущности Order
+@Table(name = "orders") // Указывает имя таблицы в базе данных для сущности Order (схема и индексы - в миграциях db/migration)
+@EntityListeners({EntityChangePublisher.class, ChangeOutboxListener.class, OrderRollupListener.class,
+        OrderOwnerVersionListener.class}) // События приложения, outbox, сводки заказов и версия пользователя
+@Cacheable // Сущность хранится во втором уровне кеша Hibernate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Изменения через Hibernate обновляют и инвалидируют записи кеша
 public class Order {
 
     @Id // Указывает, что это поле является первичным ключом
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Автоматическая генерация значения для первичного ключа
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq") // Id из последовательности: IDENTITY отключает пакетную вставку JDBC
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50) // Пул из 50 id на одно обращение к последовательности
     @JsonView(Views.UserDetails.class) // Указывает, что это поле будет сериализовано с использованием представления UserDetails
     private Long id; // Уникальный идентификатор заказа
 
@@ -25,11 +40,20 @@ public class Order {
     @JsonView(Views.UserDetails.class) // Указывает, что это поле будет сериализовано с использованием представления UserDetails
     private String status; // Статус заказа (например, "в обработке", "отправлено", "доставлено")
 
-    @ManyToOne // Указывает, что каждый заказ связан с одним пользователем
+    @Version // Версия строки: увеличивается Hibernate при каждом изменении
+    @JsonIgnore // Служебное поле, в JSON не выводится
+    private Long version; // Версия заказа
+
+    @ManyToOne(fetch = FetchType.LAZY) // Каждый заказ связан с одним пользователем; пользователь не загружается вместе с заказом
     @JoinColumn(name = "user_id") // Связь через внешний ключ с таблицей пользователей
+    @OnDelete(action = OnDeleteAction.CASCADE) // Внешний ключ ON DELETE CASCADE: удаление пользователя одним DELETE удаляет и заказы
     @JsonBackReference // Управляет сериализацией двухсторонней связи между заказом и пользователем, предотвращая рекурсию
     private User user; // Пользователь, связанный с данным заказом
 
+    @Transient // Не хранится в базе
+    @JsonIgnore
+    private OrderRollupState rollupState; // Заказ в базе на момент загрузки или последней записи: сводки вычитают эти значения
+
     // Геттеры и сеттеры для всех полей
     public Long getId() {
         return id;
@@ -63,6 +87,14 @@ public class Order {
         this.status = status;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public User getUser() {
         return user;
     }
@@ -71,6 +103,14 @@ public class Order {
         this.user = user;
     }
 
+    public OrderRollupState getRollupState() {
+        return rollupState;
+    }
+
+    public void setRollupState(OrderRollupState rollupState) {
+        this.rollupState = rollupState;
+    }
+
     // Переопределение метода toString для удобного отображения данных заказа
     @Override
     public String toString() {
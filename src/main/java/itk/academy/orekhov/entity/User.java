@@ -1,11 +1,18 @@
 package itk.academy.orekhov.entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import itk.academy.orekhov.cache.OrderOwnerVersionListener;
+import itk.academy.orekhov.event.ChangeOutboxListener;
+import itk.academy.orekhov.event.EntityChangePublisher;
 import itk.academy.orekhov.view.Views;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,10 +20,16 @@ import java.util.Objects;
 
 @Entity // Аннотация для указания, что данный класс является сущностью JPA (будет отображен в таблице базы данных)
 @Table(name = "users") // Указывает имя таблицы, в PostgreSQL "user" является зарезервированным словом, поэтому используется другое имя
+// Схема таблицы, уникальный индекс email и последовательность users_seq создаются миграциями db/migration
+@EntityListeners({EntityChangePublisher.class, ChangeOutboxListener.class,
+        OrderOwnerVersionListener.class}) // События приложения, outbox и пропуск уже записанной версии владельца заказов
+@Cacheable // Сущность хранится во втором уровне кеша Hibernate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Изменения через Hibernate обновляют и инвалидируют записи кеша
 public class User {
 
     @Id // Указывает, что данное поле является первичным ключом
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Автоматическое генерирование значения для первичного ключа
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq") // Id из последовательности: IDENTITY отключает пакетную вставку JDBC
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50) // Пул из 50 id на одно обращение к последовательности
     @JsonView(Views.UserSummary.class) // Указывает, что это поле будет сериализовано с использованием представления UserSummary
     private Long id; // Уникальный идентификатор пользователя
 
@@ -29,9 +42,15 @@ public class User {
     @JsonView(Views.UserSummary.class) // Указывает, что это поле будет сериализовано с использованием представления UserSummary
     private String email; // Электронная почта пользователя
 
+    @Version // Версия строки: увеличивается Hibernate при каждом изменении
+    @JsonIgnore // Версия передается в заголовке ETag, а не в теле
+    private Long version; // Версия пользователя
+
     @JsonView(Views.UserDetails.class) // Указывает, что это поле будет сериализовано с использованием представления UserDetails
     @JsonManagedReference // Управляет сериализацией двухсторонней связи между User и Order, предотвращая рекурсию
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true) // Связь один ко многим с сущностью Order
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Кеширование состава коллекции (id заказов пользователя)
+    @BatchSize(size = 50) // Ленивые коллекции нескольких пользователей догружаются одним запросом IN (...) вместо N запросов
     private List<Order> orders = new ArrayList<>(); // Список заказов, связанных с пользователем
 
     // Геттеры и сеттеры для всех полей
@@ -59,6 +78,14 @@ public class User {
         this.email = email;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<Order> getOrders() {
         return orders;
     }
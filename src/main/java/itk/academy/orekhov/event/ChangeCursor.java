@@ -0,0 +1,38 @@
+package itk.academy.orekhov.event;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Непрозрачный курсор ленты изменений: позиция (транзакция, id строки outbox) в base64url.
+// Лента упорядочена по транзакциям, поэтому одного id недостаточно: строка поздно зафиксированной транзакции
+// может иметь меньший id, чем уже отданные
+public record ChangeCursor(long txId, long id) {
+
+    public static final ChangeCursor START = new ChangeCursor(0L, 0L); // Позиция перед первым изменением
+
+    // Кодирует позицию в токен курсора
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((txId + "." + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Декодирует токен курсора; пустой курсор означает начало ленты
+    public static ChangeCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int dot = value.indexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            return new ChangeCursor(Long.parseLong(value.substring(0, dot)), Long.parseLong(value.substring(dot + 1)));
+        } catch (IllegalArgumentException ex) { // NumberFormatException тоже является IllegalArgumentException
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package itk.academy.orekhov.event;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строки outbox одной транзакции. Копятся слушателем ChangeOutboxListener во время flush и записываются
+// пакетами JDBC перед фиксацией - после последнего flush Hibernate, на том же соединении и в той же транзакции.
+// Откат транзакции отбрасывает их вместе с самими изменениями
+final class ChangeOutbox implements BeforeTransactionCompletionProcess {
+
+    private static final String INSERT_SQL = "insert into change_events "
+            + "(entity_type, entity_id, user_id, change_type, version, payload) values (?, ?, ?, ?, ?, ?)";
+
+    private final int batchSize; // Строк в одном пакете JDBC
+    private final List<Row> rows = new ArrayList<>();
+
+    private ChangeOutbox(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    // Outbox текущей транзакции; создается и регистрируется в сессии Hibernate при первом изменении
+    static ChangeOutbox current(SessionImplementor session, int batchSize) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ChangeOutbox outbox = new ChangeOutbox(batchSize); // Транзакция без синхронизации Spring: outbox на каждое изменение
+            session.getActionQueue().registerProcess(outbox);
+            return outbox;
+        }
+        ChangeOutbox outbox = (ChangeOutbox) TransactionSynchronizationManager.getResource(ChangeOutbox.class);
+        if (outbox == null) {
+            outbox = new ChangeOutbox(batchSize);
+            session.getActionQueue().registerProcess(outbox);
+            TransactionSynchronizationManager.bindResource(ChangeOutbox.class, outbox);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeOutbox.class);
+                }
+            });
+        }
+        return outbox;
+    }
+
+    void add(String entityType, Long entityId, Long userId, ChangeType type, Long version, String payload) {
+        rows.add(new Row(entityType, entityId, userId, type, version, payload));
+    }
+
+    @Override
+    public void doBeforeTransactionCompletion(SessionImplementor session) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                int pending = 0;
+                for (Row row : rows) {
+                    statement.setString(1, row.entityType());
+                    statement.setLong(2, row.entityId());
+                    if (row.userId() != null) {
+                        statement.setLong(3, row.userId());
+                    } else {
+                        statement.setNull(3, Types.BIGINT);
+                    }
+                    statement.setString(4, row.type().name());
+                    if (row.version() != null) {
+                        statement.setLong(5, row.version());
+                    } else {
+                        statement.setNull(5, Types.BIGINT);
+                    }
+                    statement.setString(6, row.payload());
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+        rows.clear();
+    }
+
+    private record Row(String entityType, Long entityId, Long userId, ChangeType type, Long version, String payload) {
+    }
+}
@@ -0,0 +1,78 @@
+package itk.academy.orekhov.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.json.JsonViewWriters;
+import itk.academy.orekhov.view.Views;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// JPA-слушатель сущностей User и Order: записывает каждое изменение в outbox (таблица change_events)
+// в той же транзакции. Состояние сущности сохраняется в JSON: пользователь - в представлении UserSummary,
+// заказ - в представлении UserDetails; у удаленных сущностей состояния нет
+public class ChangeOutboxListener {
+
+    @Autowired
+    @Lazy // Слушатель создается вместе с EntityManagerFactory, поэтому EntityManager разрешается при первом изменении
+    private EntityManager entityManager; // Транзакционный EntityManager: сессия Hibernate, выполняющая flush
+
+    // Собственные writer представлений: слушатель не зависит от веб-конфигурации и работает и в срезах @DataJpaTest
+    // (если Spring не сможет создать слушатель, Hibernate молча создаст его без внедренных зависимостей)
+    private static final JsonViewWriters WRITERS = new JsonViewWriters(
+            JsonMapper.builder().enable(MapperFeature.DEFAULT_VIEW_INCLUSION).build(),
+            List.of(Views.UserSummary.class, Views.UserDetails.class), List.of(User.class, Order.class));
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize; // Строки outbox пишутся пакетами того же размера, что и сами сущности
+
+    @PostPersist // После INSERT
+    public void afterInsert(Object entity) {
+        record(ChangeType.INSERT, entity);
+    }
+
+    @PostUpdate // После UPDATE
+    public void afterUpdate(Object entity) {
+        record(ChangeType.UPDATE, entity);
+    }
+
+    @PostRemove // После DELETE
+    public void afterDelete(Object entity) {
+        record(ChangeType.DELETE, entity);
+    }
+
+    private void record(ChangeType type, Object entity) {
+        record(ChangeOutbox.current(entityManager.unwrap(SessionImplementor.class), batchSize), type, entity);
+    }
+
+    // Добавляет в outbox строку изменения сущности User или Order
+    static void record(ChangeOutbox outbox, ChangeType type, Object entity) {
+        if (entity instanceof User user) {
+            outbox.add("User", user.getId(), user.getId(), type, user.getVersion(),
+                    type != ChangeType.DELETE ? json(user, User.class, Views.UserSummary.class) : null);
+        } else if (entity instanceof Order order) {
+            Long userId = order.getUser() != null ? order.getUser().getId() : null; // id прокси не требует загрузки пользователя
+            outbox.add("Order", order.getId(), userId, type, order.getVersion(),
+                    type != ChangeType.DELETE ? json(order, Order.class, Views.UserDetails.class) : null);
+        }
+    }
+
+    private static String json(Object entity, Class<?> type, Class<?> view) {
+        try {
+            return WRITERS.writerFor(type, view).writeValueAsString(entity);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
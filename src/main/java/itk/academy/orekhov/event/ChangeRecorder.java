@@ -0,0 +1,34 @@
+package itk.academy.orekhov.event;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// Изменения, выполненные SQL-операторами в обход контекста персистентности (UPDATE/DELETE без загрузки сущности),
+// не вызывают JPA-слушателей. Вызывающий код сообщает о них сам, и они попадают в outbox и события приложения
+// так же, как изменения через Hibernate. Вызывается внутри транзакции, выполнившей изменение
+@Component
+public class ChangeRecorder {
+
+    @PersistenceContext
+    private EntityManager entityManager; // Транзакционный EntityManager: outbox записывается в его сессии перед фиксацией
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Публикация EntityChangedEvent
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize; // Размер пакета строк outbox
+
+    // Записывает изменение; entity - состояние сущности после изменения (для DELETE достаточно id, версии и владельца)
+    public void record(ChangeType type, Object entity) {
+        ChangeOutboxListener.record(ChangeOutbox.current(entityManager.unwrap(SessionImplementor.class), batchSize), type, entity);
+        EntityChangedEvent event = EntityChangePublisher.event(type, entity);
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package itk.academy.orekhov.event;
+
+// Тип изменения сущности
+public enum ChangeType {
+    INSERT, // Создание
+    UPDATE, // Изменение
+    DELETE // Удаление
+}
@@ -0,0 +1,51 @@
+package itk.academy.orekhov.event;
+
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+// JPA-слушатель сущностей User и Order: превращает события жизненного цикла в EntityChangedEvent.
+// Экземпляр создает Hibernate через контейнер бинов Spring, поэтому зависимости внедряются как обычно
+public class EntityChangePublisher {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Публикация событий приложения
+
+    @PostPersist // После INSERT
+    public void afterInsert(Object entity) {
+        publish(ChangeType.INSERT, entity);
+    }
+
+    @PostUpdate // После UPDATE
+    public void afterUpdate(Object entity) {
+        publish(ChangeType.UPDATE, entity);
+    }
+
+    @PostRemove // После DELETE
+    public void afterDelete(Object entity) {
+        publish(ChangeType.DELETE, entity);
+    }
+
+    private void publish(ChangeType type, Object entity) {
+        EntityChangedEvent event = event(type, entity);
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    // Событие изменения сущности User или Order (null для прочих сущностей)
+    static EntityChangedEvent event(ChangeType type, Object entity) {
+        if (entity instanceof User user) {
+            return new EntityChangedEvent(type, User.class, user.getId(), user.getId(),
+                    user.getVersion(), user.getName(), user.getEmail());
+        } else if (entity instanceof Order order) {
+            Long userId = order.getUser() != null ? order.getUser().getId() : null; // id прокси не требует загрузки пользователя
+            return new EntityChangedEvent(type, Order.class, order.getId(), userId, order.getVersion(), null, null);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package itk.academy.orekhov.event;
+
+// Событие изменения пользователя или заказа; публикуется синхронно внутри транзакции,
+// подписчики, которым нужны только зафиксированные изменения, используют @TransactionalEventListener
+public record EntityChangedEvent(
+        ChangeType type, // Тип изменения
+        Class<?> entityType, // Класс сущности (User или Order)
+        Long entityId, // Идентификатор измененной сущности
+        Long userId, // Идентификатор пользователя, к которому относится изменение (для User совпадает с entityId)
+        Long version, // Версия сущности после изменения (для упорядочивания событий подписчиками)
+        String name, // Имя пользователя после изменения (только для User, иначе null)
+        String email // Email пользователя после изменения (только для User, иначе null)
+) {
+}
@@ -0,0 +1,80 @@
+package itk.academy.orekhov.export;
+
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Выгрузка в CSV (RFC 4180): одна строка на заказ с повторением полей пользователя;
+// пользователь без заказов выгружается одной строкой с пустыми полями заказа
+public class CsvUserExportWriter implements UserExportWriter {
+
+    static final String HEADER = "user_id,name,email,order_id,product,amount,status";
+
+    private final Writer out;
+
+    public CsvUserExportWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.out.write(HEADER);
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        if (user.getOrders().isEmpty()) {
+            writeRow(user, null);
+        }
+        for (Order order : user.getOrders()) {
+            writeRow(user, order);
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush(); // Поток ответа закрывает Spring MVC
+    }
+
+    private void writeRow(User user, Order order) throws IOException {
+        out.write(String.valueOf(user.getId()));
+        out.write(',');
+        writeText(user.getName());
+        out.write(',');
+        writeText(user.getEmail());
+        out.write(',');
+        if (order != null) {
+            out.write(String.valueOf(order.getId()));
+            out.write(',');
+            writeText(order.getProduct());
+            out.write(',');
+            if (order.getAmount() != null) {
+                out.write(order.getAmount().toString());
+            }
+            out.write(',');
+            writeText(order.getStatus());
+        } else {
+            out.write(",,,");
+        }
+        out.write("\r\n");
+    }
+
+    // Значение берется в кавычки, только если содержит разделитель, кавычку или перевод строки
+    private void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
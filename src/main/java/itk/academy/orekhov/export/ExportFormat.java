@@ -0,0 +1,38 @@
+package itk.academy.orekhov.export;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+// Формат выгрузки пользователей: тип содержимого, расширение файла и способ записи
+public enum ExportFormat {
+
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"), // Одна JSON-запись пользователя с заказами на строку
+    CSV(new MediaType("text", "csv"), "csv"); // Одна строка на заказ, поля пользователя повторяются
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    // Разбор параметра запроса без учета регистра; null - формат не поддерживается
+    public static ExportFormat of(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equals(value.toUpperCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
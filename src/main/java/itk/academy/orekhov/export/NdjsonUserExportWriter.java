@@ -0,0 +1,36 @@
+package itk.academy.orekhov.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import itk.academy.orekhov.entity.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Выгрузка в NDJSON: каждый пользователь - одна строка в форме представления UserDetails
+public class NdjsonUserExportWriter implements UserExportWriter {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    // writer - заранее построенный writer для User в представлении UserDetails
+    public NdjsonUserExportWriter(OutputStream out, ObjectMapper objectMapper, ObjectWriter writer) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // Потоком ответа управляет Spring MVC
+        this.writer = writer.without(SerializationFeature.INDENT_OUTPUT) // Запись обязана помещаться в одну строку
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        writer.writeValue(generator, user);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.close(); // Сбрасывает буфер генератора, не закрывая поток ответа
+    }
+}
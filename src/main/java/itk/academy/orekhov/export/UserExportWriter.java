@@ -0,0 +1,15 @@
+package itk.academy.orekhov.export;
+
+import itk.academy.orekhov.entity.User;
+
+import java.io.IOException;
+
+// Запись выгрузки пользователей в поток ответа; пользователи передаются по одному вместе с заказами
+public interface UserExportWriter {
+
+    // Записывает пользователя и его заказы
+    void write(User user) throws IOException;
+
+    // Завершает выгрузку и сбрасывает буферы (поток ответа не закрывается)
+    void finish() throws IOException;
+}
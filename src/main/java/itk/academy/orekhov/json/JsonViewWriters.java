@@ -0,0 +1,63 @@
+package itk.academy.orekhov.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Реестр заранее построенных ObjectWriter для пар (тип, представление).
+// Для каждого представления создается отдельная копия ObjectMapper, сериализаторы которой уже содержат
+// только свойства этого представления; запись идет без активного представления, без проверок @JsonView на каждом поле
+public class JsonViewWriters {
+
+    private final Map<Class<?>, ObjectMapper> mappers = new ConcurrentHashMap<>(); // Специализированный mapper на представление
+    private final Map<WriterKey, ObjectWriter> writers = new ConcurrentHashMap<>(); // Готовые writer для пар (тип, представление)
+
+    // Строит mapper для каждого представления и заранее разрешает сериализаторы для перечисленных типов
+    public JsonViewWriters(ObjectMapper objectMapper, Collection<Class<?>> views, Collection<Class<?>> types) {
+        for (Class<?> view : views) {
+            ObjectMapper viewMapper = objectMapper.copy();
+            viewMapper.setSerializerFactory(viewMapper.getSerializerFactory()
+                    .withSerializerModifier(new ViewPruningSerializerModifier(view)));
+            viewMapper.setConfig(viewMapper.getSerializationConfig().withView(null)); // Представление уже "вшито" в сериализаторы
+            mappers.put(view, viewMapper);
+            for (Class<?> type : types) {
+                writerFor(viewMapper.constructType(type), view); // ObjectWriter для конкретного типа строит сериализатор сразу
+            }
+        }
+    }
+
+    // Возвращает true, если для представления есть специализированный mapper
+    public boolean supports(Class<?> view) {
+        return mappers.containsKey(view);
+    }
+
+    // Writer для типа в заданном представлении; для новых типов строится один раз и кешируется
+    public ObjectWriter writerFor(Class<?> type, Class<?> view) {
+        return writerFor(mapperFor(view).constructType(type), view);
+    }
+
+    // Writer для обобщенного типа (например, List<UserSummaryDto>); null - тип неизвестен, сериализатор по runtime-классу
+    public ObjectWriter writerFor(JavaType type, Class<?> view) {
+        ObjectMapper viewMapper = mapperFor(view);
+        if (type == null) {
+            return writers.computeIfAbsent(new WriterKey(null, view), key -> viewMapper.writer());
+        }
+        return writers.computeIfAbsent(new WriterKey(type, view), key -> viewMapper.writerFor(type));
+    }
+
+    private ObjectMapper mapperFor(Class<?> view) {
+        ObjectMapper viewMapper = mappers.get(view);
+        if (viewMapper == null) {
+            throw new IllegalArgumentException("Unsupported JSON view: " + view.getName());
+        }
+        return viewMapper;
+    }
+
+    // Ключ кеша: полный тип (с параметрами) и представление
+    private record WriterKey(JavaType type, Class<?> view) {
+    }
+}
@@ -0,0 +1,105 @@
+package itk.academy.orekhov.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import itk.academy.orekhov.metrics.SerializationMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.lang.Nullable;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+// JSON-конвертер Spring MVC, который для ответов с @JsonView подставляет заранее построенный writer из JsonViewWriters
+// вместо общего writerWithView(view); остальные ответы пишутся стандартным путем.
+// Время записи и размер каждого ответа учитываются в метриках по представлению
+public class PrecompiledViewHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    static final String METRICS_SOURCE = "converter"; // Тег source: ответ записан конвертером
+
+    private final JsonViewWriters viewWriters;
+    private final SerializationMetrics metrics;
+
+    // Конвертер без метрик: пустой составной реестр создает метры, которые ничего не записывают
+    public PrecompiledViewHttpMessageConverter(ObjectMapper objectMapper, JsonViewWriters viewWriters) {
+        this(objectMapper, viewWriters, new SerializationMetrics(new CompositeMeterRegistry()));
+    }
+
+    public PrecompiledViewHttpMessageConverter(ObjectMapper objectMapper, JsonViewWriters viewWriters,
+                                               SerializationMetrics metrics) {
+        super(objectMapper);
+        this.viewWriters = viewWriters;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected ObjectWriter customizeWriter(ObjectWriter writer, JavaType javaType, MediaType contentType) {
+        Class<?> view = writer.getConfig().getActiveView(); // Представление из MappingJacksonValue (аннотация @JsonView)
+        if (view == null || !viewWriters.supports(view) || writer.getConfig().getFilterProvider() != null) {
+            return super.customizeWriter(writer, javaType, contentType);
+        }
+        return viewWriters.writerFor(javaType, view);
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        Class<?> view = object instanceof MappingJacksonValue value ? value.getSerializationView() : null;
+        CountingOutputMessage counting = new CountingOutputMessage(outputMessage);
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, counting);
+        } finally {
+            metrics.record(view, METRICS_SOURCE, status(outputMessage), System.nanoTime() - start, counting.bytes());
+        }
+    }
+
+    // Статус ответа для тега outcome; 0 - ответ не сервлетный (статус неизвестен)
+    private static int status(HttpOutputMessage outputMessage) {
+        return outputMessage instanceof ServletServerHttpResponse response ? response.getServletResponse().getStatus() : 0;
+    }
+
+    // Обертка ответа, считающая записанные байты
+    private static final class CountingOutputMessage implements HttpOutputMessage {
+
+        private final HttpOutputMessage delegate;
+        private long bytes;
+
+        CountingOutputMessage(HttpOutputMessage delegate) {
+            this.delegate = delegate;
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return new FilterOutputStream(delegate.getBody()) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len); // FilterOutputStream по умолчанию пишет по одному байту
+                    bytes += len;
+                }
+            };
+        }
+    }
+}
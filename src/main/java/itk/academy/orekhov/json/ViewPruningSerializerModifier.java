@@ -0,0 +1,41 @@
+package itk.academy.orekhov.json;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import java.util.List;
+
+// Модификатор сериализаторов для одного фиксированного представления: свойства, не входящие в представление,
+// удаляются из сериализатора при его построении, поэтому при записи проверка @JsonView уже не нужна
+class ViewPruningSerializerModifier extends BeanSerializerModifier {
+
+    private final Class<?> view; // Представление, под которое строятся сериализаторы
+
+    ViewPruningSerializerModifier(Class<?> view) {
+        this.view = view;
+    }
+
+    @Override
+    public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                     List<BeanPropertyWriter> beanProperties) {
+        boolean defaultInclusion = config.isEnabled(MapperFeature.DEFAULT_VIEW_INCLUSION); // Свойства без @JsonView
+        beanProperties.removeIf(property -> !isIncluded(property.getViews(), defaultInclusion));
+        return beanProperties;
+    }
+
+    // Та же логика, что у Jackson при активном представлении: свойство видно, если его представление - предок текущего
+    private boolean isIncluded(Class<?>[] propertyViews, boolean defaultInclusion) {
+        if (propertyViews == null || propertyViews.length == 0) {
+            return defaultInclusion;
+        }
+        for (Class<?> propertyView : propertyViews) {
+            if (propertyView.isAssignableFrom(view)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package itk.academy.orekhov.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Количество SQL-запросов на HTTP-запрос (метрика app.http.queries с тегами method, uri и outcome - класс статуса ответа,
+// как у http.server.requests).
+// Учитываются запросы, выполненные в потоке обработчика; потоковые ответы пишутся в другом потоке.
+// Единственное место, где начинается и завершается подсчет QueryCountingStatementInspector для HTTP-запроса
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String COUNT_ATTRIBUTE = QueryCountInterceptor.class.getName() + ".COUNT";
+
+    static final String METRIC = "app.http.queries";
+
+    private final MeterRegistry registry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>(); // Метр на (метод, шаблон пути, outcome)
+
+    public QueryCountInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCountingStatementInspector.reset();
+        return true;
+    }
+
+    // Асинхронный ответ: поток обработчика возвращается в пул, а afterCompletion вызовется в другом потоке,
+    // поэтому количество запоминается в запросе, а подсчет в этом потоке завершается
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(COUNT_ATTRIBUTE, QueryCountingStatementInspector.count());
+        QueryCountingStatementInspector.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        try {
+            record(request, response);
+        } finally {
+            QueryCountingStatementInspector.clear();
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response) {
+        Object handlerCount = request.getAttribute(COUNT_ATTRIBUTE);
+        long count = handlerCount instanceof Long value ? value : QueryCountingStatementInspector.count();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE); // Шаблон, а не путь с id
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        Outcome outcome = Outcome.forStatus(response.getStatus());
+        summaries.computeIfAbsent(method + ' ' + uri + ' ' + outcome, key -> DistributionSummary.builder(METRIC)
+                        .description("SQL statements issued while handling a request")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .tag("outcome", outcome.name())
+                        .register(registry))
+                .record(count);
+    }
+}
@@ -0,0 +1,60 @@
+package itk.academy.orekhov.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Счетчик SQL-запросов текущего потока. Hibernate вызывает inspect перед подготовкой каждого оператора,
+// поэтому счетчик видит все запросы репозиториев, ленивые загрузки и flush. Регистрируется свойством
+// hibernate.session_factory.statement_inspector; стоимость - обращение к ThreadLocal и HashMap на запрос.
+// Кроме общего количества запоминается, сколько раз выполнялся каждый текст SQL (для поиска N+1).
+// Подсчет ведется только между reset() и clear() (HTTP-запрос, тест): потоки планировщика, fork-join и фоновых
+// задач ничего не накапливают
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    static final int MAX_TRACKED_STATEMENTS = 1000; // Различных текстов SQL на подсчет; дальше растет только счетчик
+
+    private static final ThreadLocal<Statements> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Statements statements = STATEMENTS.get();
+        if (statements == null) {
+            return sql; // Подсчет в этом потоке не начат
+        }
+        statements.count++;
+        if (statements.bySql.size() < MAX_TRACKED_STATEMENTS || statements.bySql.containsKey(sql)) {
+            statements.bySql.merge(sql, 1, Integer::sum); // Строки SQL Hibernate кеширует, хеш уже посчитан
+        }
+        return sql; // SQL не изменяется
+    }
+
+    // Начинает подсчет в текущем потоке с нуля (в начале HTTP-запроса)
+    public static void reset() {
+        STATEMENTS.set(new Statements());
+    }
+
+    // Завершает подсчет в текущем потоке (по завершении HTTP-запроса): поток возвращается в пул без счетчика
+    public static void clear() {
+        STATEMENTS.remove();
+    }
+
+    // Количество запросов текущего потока с последнего обнуления
+    public static long count() {
+        Statements statements = STATEMENTS.get();
+        return statements != null ? statements.count : 0;
+    }
+
+    // Количество выполнений каждого текста SQL с последнего обнуления (только для чтения)
+    public static Map<String, Integer> statements() {
+        Statements statements = STATEMENTS.get();
+        return statements != null ? Collections.unmodifiableMap(statements.bySql) : Map.of();
+    }
+
+    private static final class Statements {
+        private long count;
+        private final Map<String, Integer> bySql = new HashMap<>();
+    }
+}
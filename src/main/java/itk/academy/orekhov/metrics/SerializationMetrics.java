@@ -0,0 +1,53 @@
+package itk.academy.orekhov.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Время сериализации JSON и размер ответа по представлениям (метрики app.json.serialization и app.json.serialized.bytes).
+// Тег outcome - класс статуса ответа, как у http.server.requests (SUCCESS, CLIENT_ERROR, SERVER_ERROR, ...).
+// Метры создаются один раз на представление, запись - без поиска в реестре
+public class SerializationMetrics {
+
+    static final String TIMER = "app.json.serialization";
+    static final String BYTES = "app.json.serialized.bytes";
+    static final String NO_VIEW = "none"; // Тег для ответов без @JsonView
+
+    private final MeterRegistry registry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public SerializationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Записывает длительность сериализации и количество записанных байт для представления (null - без представления);
+    // status - HTTP-статус ответа (0 - неизвестен, outcome UNKNOWN)
+    public void record(Class<?> view, String source, int status, long nanos, long bytes) {
+        String viewName = view != null ? view.getSimpleName() : NO_VIEW;
+        Outcome outcome = Outcome.forStatus(status);
+        Meters viewMeters = meters.computeIfAbsent(viewName + '/' + source + '/' + outcome, key -> new Meters(
+                Timer.builder(TIMER)
+                        .description("Time spent writing JSON responses")
+                        .tag("view", viewName)
+                        .tag("source", source)
+                        .tag("outcome", outcome.name())
+                        .register(registry),
+                DistributionSummary.builder(BYTES)
+                        .description("Size of serialized JSON responses")
+                        .baseUnit("bytes")
+                        .tag("view", viewName)
+                        .tag("source", source)
+                        .tag("outcome", outcome.name())
+                        .register(registry)));
+        viewMeters.timer().record(nanos, TimeUnit.NANOSECONDS);
+        viewMeters.bytes().record(bytes);
+    }
+
+    private record Meters(Timer timer, DistributionSummary bytes) {
+    }
+}
@@ -0,0 +1,37 @@
+package itk.academy.orekhov.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Проверка бюджета SQL непосредственно перед записью тела ответа: к этому моменту все запросы обработчика
+// выполнены (open-in-view выключен, ленивой загрузки при сериализации нет), а в режиме FAIL еще можно вернуть 500
+@ControllerAdvice
+public class SqlBudgetAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlBudgetGuard guard;
+
+    public SqlBudgetAdvice(SqlBudgetGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            guard.check(servletRequest.getServletRequest(), true);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,9 @@
+package itk.academy.orekhov.metrics;
+
+// Запрос выполнил больше SQL-запросов, чем разрешено бюджетом, или повторял одну форму запроса (N+1)
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,47 @@
+package itk.academy.orekhov.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Проверка количества SQL-запросов HTTP-запроса по бюджету эндпоинта.
+// Проверяется один раз на запрос: перед записью тела ответа (тогда в режиме FAIL еще можно вернуть ошибку)
+// либо по завершении запроса без тела
+public class SqlBudgetGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlBudgetGuard.class);
+    private static final String CHECKED_ATTRIBUTE = SqlBudgetGuard.class.getName() + ".CHECKED";
+
+    private final SqlBudgetProperties properties;
+
+    public SqlBudgetGuard(SqlBudgetProperties properties) {
+        this.properties = properties;
+    }
+
+    // Проверяет запрос; canFail - ответ еще не записан и превышение можно превратить в ошибку
+    public void check(HttpServletRequest request, boolean canFail) {
+        if (!properties.isEnabled() || request.getAttribute(CHECKED_ATTRIBUTE) != null) {
+            return;
+        }
+        request.setAttribute(CHECKED_ATTRIBUTE, Boolean.TRUE);
+        String endpoint = endpoint(request);
+        int maxStatements = properties.maxStatementsFor(endpoint);
+        StatementReport report = StatementReport.capture(properties.repeatThresholdFor(endpoint));
+        boolean overBudget = maxStatements > 0 && report.count() > maxStatements;
+        if (!overBudget && report.repeated().isEmpty()) {
+            return;
+        }
+        String message = "SQL budget exceeded for " + endpoint + " (budget " + maxStatements + "): " + report.describe();
+        if (properties.getMode() == SqlBudgetProperties.Mode.FAIL && canFail) {
+            throw new SqlBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    // Ключ эндпоинта: метод и шаблон пути, как в настройках бюджета
+    static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + ' ' + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
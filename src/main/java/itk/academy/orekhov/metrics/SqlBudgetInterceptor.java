@@ -0,0 +1,21 @@
+package itk.academy.orekhov.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Проверяет бюджет запросов без тела ответа (например, 204 No Content). Подсчет начинает и завершает
+// QueryCountInterceptor: он зарегистрирован раньше, поэтому его afterCompletion вызывается после этого
+public class SqlBudgetInterceptor implements HandlerInterceptor {
+
+    private final SqlBudgetGuard guard;
+
+    public SqlBudgetInterceptor(SqlBudgetGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        guard.check(request, false); // Ответ уже отправлен, превышение можно только записать в журнал
+    }
+}
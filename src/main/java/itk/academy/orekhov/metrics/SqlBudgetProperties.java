@@ -0,0 +1,100 @@
+package itk.academy.orekhov.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Бюджет SQL-запросов на HTTP-запрос (app.sql-budget.*).
+// Бюджет конкретного эндпоинта задается по ключу "МЕТОД шаблон-пути", например
+// app.sql-budget.endpoints[GET /api/users/{id}].max-statements=2; значения <= 0 снимают ограничение
+@ConfigurationProperties(prefix = "app.sql-budget")
+public class SqlBudgetProperties {
+
+    // Реакция на превышение бюджета
+    public enum Mode {
+        LOG, // Предупреждение в журнал
+        FAIL // Ответ 500 вместо результата (для разработки и тестов)
+    }
+
+    private boolean enabled = true; // Проверка бюджета включена
+    private Mode mode = Mode.LOG;
+    private int maxStatements = 10; // Бюджет по умолчанию для эндпоинтов без собственного
+    private int repeatThreshold = 3; // Сколько повторов одной формы запроса считать признаком N+1
+    private Map<String, Endpoint> endpoints = new HashMap<>(); // Бюджеты отдельных эндпоинтов
+
+    // Бюджет отдельного эндпоинта; незаданные значения берутся из общих
+    public static class Endpoint {
+
+        private Integer maxStatements;
+        private Integer repeatThreshold;
+
+        public Integer getMaxStatements() {
+            return maxStatements;
+        }
+
+        public void setMaxStatements(Integer maxStatements) {
+            this.maxStatements = maxStatements;
+        }
+
+        public Integer getRepeatThreshold() {
+            return repeatThreshold;
+        }
+
+        public void setRepeatThreshold(Integer repeatThreshold) {
+            this.repeatThreshold = repeatThreshold;
+        }
+    }
+
+    // Бюджет запросов для эндпоинта
+    public int maxStatementsFor(String endpoint) {
+        Endpoint budget = endpoints.get(endpoint);
+        return budget != null && budget.getMaxStatements() != null ? budget.getMaxStatements() : maxStatements;
+    }
+
+    // Порог повторов для эндпоинта
+    public int repeatThresholdFor(String endpoint) {
+        Endpoint budget = endpoints.get(endpoint);
+        return budget != null && budget.getRepeatThreshold() != null ? budget.getRepeatThreshold() : repeatThreshold;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public void setMaxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public int getRepeatThreshold() {
+        return repeatThreshold;
+    }
+
+    public void setRepeatThreshold(int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public Map<String, Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+}
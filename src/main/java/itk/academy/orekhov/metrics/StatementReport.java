@@ -0,0 +1,56 @@
+package itk.academy.orekhov.metrics;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Сводка SQL-запросов текущего потока: общее количество и "формы" запросов, повторенные подозрительно часто.
+// Форма - текст SQL без литералов и с любым списком IN (?, ?, ...) вместо конкретной длины,
+// поэтому загрузка коллекций по одной (N+1) сводится к одной форме с большим счетчиком
+public record StatementReport(long count, List<RepeatedStatement> repeated) {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Форма запроса и сколько раз она выполнялась
+    public record RepeatedStatement(String shape, int count) {
+    }
+
+    // Снимок для текущего потока; repeatThreshold <= 0 отключает поиск повторов
+    public static StatementReport capture(int repeatThreshold) {
+        long count = QueryCountingStatementInspector.count();
+        if (repeatThreshold <= 0 || count < repeatThreshold) {
+            return new StatementReport(count, List.of());
+        }
+        Map<String, Integer> shapes = new LinkedHashMap<>();
+        QueryCountingStatementInspector.statements()
+                .forEach((sql, executions) -> shapes.merge(shape(sql), executions, Integer::sum));
+        List<RepeatedStatement> repeated = shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() >= repeatThreshold)
+                .map(entry -> new RepeatedStatement(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingInt(RepeatedStatement::count).reversed())
+                .toList();
+        return new StatementReport(count, repeated);
+    }
+
+    // Нормализация текста SQL в форму
+    public static String shape(String sql) {
+        String shape = IN_LIST.matcher(sql).replaceAll("(?...)");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    // Текстовое описание для журнала и сообщений об ошибке
+    public String describe() {
+        StringBuilder description = new StringBuilder().append(count).append(" SQL statements");
+        for (RepeatedStatement statement : repeated) {
+            description.append("\n  ").append(statement.count()).append("x ").append(statement.shape());
+        }
+        return description.toString();
+    }
+}
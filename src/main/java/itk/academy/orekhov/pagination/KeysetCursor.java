@@ -0,0 +1,34 @@
+package itk.academy.orekhov.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Непрозрачный курсор для keyset-пагинации: кодирует последний отданный id в base64url.
+// Общий для сервлетного и реактивного контроллеров, чтобы курсоры были взаимозаменяемы
+public final class KeysetCursor {
+
+    private KeysetCursor() {
+    }
+
+    // Кодирует id последней записи страницы в токен курсора
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Декодирует токен курсора; пустой курсор означает начало выборки
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L; // Идентификаторы начинаются с 1, поэтому 0 - позиция перед первой записью
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            return Long.parseLong(value);
+        } catch (IllegalArgumentException ex) { // NumberFormatException тоже является IllegalArgumentException
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package itk.academy.orekhov.readmodel;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.dto.VersionedUserSummaryDto;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.event.ChangeType;
+import itk.academy.orekhov.event.EntityChangedEvent;
+import itk.academy.orekhov.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Модель чтения UserSummary в памяти (app.read-model.type=memory) поверх UserSummaryIndex.
+// Загружается из UserRepository при старте и периодически перезагружается; между загрузками
+// поддерживается событиями EntityChangedEvent после фиксации транзакций
+@Component
+@ConditionalOnProperty(name = "app.read-model.type", havingValue = "memory")
+public class InMemoryUserSummaryReadModel implements UserSummaryReadModel, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryUserSummaryReadModel.class);
+    private static final int LOAD_BATCH = 1000; // Строки, добавляемые в загружаемый индекс за один захват монитора
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate; // Транзакция только для чтения на время прохода курсора
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Поиски параллельны, изменения - по одному
+
+    private UserSummaryIndex index; // null, пока модель не загружена; изменяется под lock
+    private UserSummaryIndex building; // Загружаемый индекс; изменяется под монитором this
+
+    public InMemoryUserSummaryReadModel(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // Метрики: app.read-model.users, app.read-model.bytes
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.read-model.users", this, InMemoryUserSummaryReadModel::size)
+                .description("Users in the in-memory summary read model").register(registry);
+        Gauge.builder("app.read-model.bytes", this, InMemoryUserSummaryReadModel::sizeInBytes)
+                .description("Heap used by the in-memory summary read model arrays").baseUnit("bytes").register(registry);
+    }
+
+    @Override
+    public UserSummaryDto find(long id) {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.get(id) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.sizeInBytes() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Загрузка при старте: до ее окончания поиски возвращают null и потребители идут в базу
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    // Полная перезагрузка убирает метки удаленных пользователей и освобождает замененные строки
+    @Scheduled(initialDelayString = "${app.read-model.reload-interval:PT6H}",
+            fixedDelayString = "${app.read-model.reload-interval:PT6H}")
+    public void reload() {
+        long start = System.nanoTime();
+        UserSummaryIndex next = new UserSummaryIndex((int) Math.max(size(), userRepository.count()));
+        synchronized (this) {
+            building = next; // С этого момента события применяются и к загружаемому индексу
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<VersionedUserSummaryDto> users = userRepository.streamVersionedSummaries()) {
+                    List<VersionedUserSummaryDto> batch = new ArrayList<>(LOAD_BATCH);
+                    users.forEach(user -> {
+                        batch.add(user);
+                        if (batch.size() == LOAD_BATCH) {
+                            load(next, batch);
+                        }
+                    });
+                    load(next, batch);
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                index = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("User summary read model loaded {} users in {} ms ({} bytes)", next.size(),
+                    (System.nanoTime() - start) / 1_000_000, next.sizeInBytes());
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+    }
+
+    // Событие применяется после фиксации: откаченные изменения в модель не попадают.
+    // Порядок событий не важен - устаревшие версии отбрасываются индексом
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChangeCommitted(EntityChangedEvent event) {
+        if (event.entityType() != User.class) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            synchronized (this) {
+                apply(index, event);
+                apply(building, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void load(UserSummaryIndex target, List<VersionedUserSummaryDto> batch) {
+        for (VersionedUserSummaryDto user : batch) {
+            target.putIfNewer(user.id(), user.version() != null ? user.version() : 0L, user.name(), user.email());
+        }
+        batch.clear();
+    }
+
+    private static void apply(UserSummaryIndex target, EntityChangedEvent event) {
+        if (target == null) {
+            return;
+        }
+        if (event.type() == ChangeType.DELETE) {
+            target.markDeleted(event.entityId());
+        } else {
+            target.putIfNewer(event.entityId(), event.version() != null ? event.version() : 0L, event.name(), event.email());
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package itk.academy.orekhov.readmodel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import itk.academy.orekhov.dto.ChangeEventDto;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.dto.VersionedUserSummaryDto;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.event.ChangeCursor;
+import itk.academy.orekhov.event.ChangeType;
+import itk.academy.orekhov.event.EntityChangedEvent;
+import itk.academy.orekhov.repository.UserRepository;
+import itk.academy.orekhov.service.ChangeFeedService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Модель чтения UserSummary в файле, отображенном в память (app.read-model.type=mmap).
+// Данные лежат вне кучи и переживают перезапуск: снимок, закрытый штатно или на контрольной точке,
+// открывается при создании бина, и модель готова до первого запроса без обращения к базе.
+// Снимок старше app.read-model.snapshot-max-age перезагружается из UserRepository; между загрузками
+// его обновляют события EntityChangedEvent после фиксации транзакций. В заголовке снимка хранится позиция
+// в ленте изменений (change_events): при старте и на каждой контрольной точке изменения после нее применяются
+// к снимку, поэтому изменения, сделанные пока приложение не работало или другими экземплярами, не теряются
+@Component
+@ConditionalOnProperty(name = "app.read-model.type", havingValue = "mmap")
+public class MappedUserSummaryReadModel implements UserSummaryReadModel, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedUserSummaryReadModel.class);
+    private static final int LOAD_BATCH = 1000; // Строки, добавляемые в загружаемый снимок за один захват монитора
+    private static final int REPLAY_BATCH = 1000; // Изменения ленты, читаемые и применяемые за один раз
+
+    private final UserRepository userRepository;
+    private final ChangeFeedService changeFeedService; // Лента изменений для догоняющего применения
+    private final ObjectMapper objectMapper; // Разбор состояния пользователя из строк ленты
+    private final TransactionTemplate transactionTemplate; // Транзакция только для чтения на время прохода курсора
+    private final Path path; // Файл снимка
+    private final Duration maxAge; // Возраст снимка, после которого он перезагружается при старте
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Поиски параллельны, изменения - по одному
+    private final Object feedLock = new Object(); // Загрузка и чтение ленты не выполняются одновременно: позиция снимка одна
+
+    private UserSummarySnapshot snapshot; // null, пока снимок не открыт и не загружен; изменяется под lock
+    private UserSummarySnapshot building; // Загружаемый снимок; изменяется под монитором this
+
+    public MappedUserSummaryReadModel(UserRepository userRepository, ChangeFeedService changeFeedService,
+                                      ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                      @Value("${app.read-model.snapshot-path:data/user-summary.snapshot}") Path path,
+                                      @Value("${app.read-model.snapshot-max-age:PT6H}") Duration maxAge) {
+        this.userRepository = userRepository;
+        this.changeFeedService = changeFeedService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.path = path;
+        this.maxAge = maxAge;
+        long start = System.nanoTime();
+        this.snapshot = UserSummarySnapshot.open(path); // Прерванный или несовместимый снимок не используется
+        if (snapshot != null) {
+            log.info("User summary snapshot {} opened with {} users in {} ms", path, snapshot.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // Метрики: app.read-model.users, app.read-model.bytes
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.read-model.users", this, MappedUserSummaryReadModel::size)
+                .description("Users in the memory-mapped summary snapshot").register(registry);
+        Gauge.builder("app.read-model.bytes", this, MappedUserSummaryReadModel::sizeInBytes)
+                .description("Size of the memory-mapped summary snapshot file").baseUnit("bytes").register(registry);
+    }
+
+    @Override
+    public UserSummaryDto find(long id) {
+        lock.readLock().lock();
+        try {
+            return snapshot != null ? snapshot.get(id) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return snapshot != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return snapshot != null ? snapshot.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return snapshot != null ? snapshot.sizeInBytes() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // При старте снимок догоняет ленту изменений с сохраненной позиции. Из базы он загружается заново, только если
+    // его нет, он устарел, лента могла потерять нужные изменения (позиция старше срока хранения) или число
+    // пользователей в нем не совпадает с базой (например, база восстановлена из резервной копии)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long loadedAt;
+        long syncedAt;
+        lock.readLock().lock();
+        try {
+            loadedAt = snapshot != null ? snapshot.loadedAt() : 0;
+            syncedAt = snapshot != null ? snapshot.syncedAt() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+        long now = System.currentTimeMillis();
+        if (now - loadedAt > maxAge.toMillis() || now - syncedAt > changeFeedService.retention().toMillis()) {
+            reload();
+            return;
+        }
+        catchUp();
+        if (size() != userRepository.count()) {
+            reload();
+        }
+    }
+
+    // Применяет изменения пользователей из ленты после позиции снимка и сдвигает позицию.
+    // Изменения, уже пришедшие событиями, повторно ничего не меняют: снимок отбрасывает не более новые версии
+    public void catchUp() {
+        synchronized (feedLock) {
+            ChangeCursor cursor;
+            lock.readLock().lock();
+            try {
+                if (snapshot == null) {
+                    return;
+                }
+                cursor = snapshot.cursor();
+            } finally {
+                lock.readLock().unlock();
+            }
+            long syncedAt = System.currentTimeMillis(); // Изменения, записанные до этого момента, будут прочитаны
+            List<ChangeEventDto> changes = new ArrayList<>(REPLAY_BATCH);
+            do {
+                changes.clear();
+                changeFeedService.forEachChange(cursor, REPLAY_BATCH, changes::add);
+                if (!changes.isEmpty()) {
+                    cursor = ChangeCursor.decode(changes.get(changes.size() - 1).cursor());
+                }
+                lock.writeLock().lock();
+                try {
+                    synchronized (this) {
+                        if (snapshot == null) { // Модель закрыта
+                            return;
+                        }
+                        for (ChangeEventDto change : changes) {
+                            if ("User".equals(change.entity())) {
+                                apply(snapshot, toEvent(change));
+                            }
+                        }
+                        snapshot.setCursor(cursor, syncedAt);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (changes.size() == REPLAY_BATCH);
+        }
+    }
+
+    // Полная перезагрузка в соседний файл с атомарной заменой: снимок остается доступным все время загрузки
+    @Scheduled(initialDelayString = "${app.read-model.reload-interval:PT6H}",
+            fixedDelayString = "${app.read-model.reload-interval:PT6H}")
+    public void reload() {
+        synchronized (feedLock) {
+            loadFromDatabase();
+        }
+    }
+
+    private void loadFromDatabase() {
+        long start = System.nanoTime();
+        long startedAt = System.currentTimeMillis();
+        ChangeCursor head = changeFeedService.head(); // Изменения после этой позиции догоняются по ленте
+        Path temporary = path.resolveSibling(path.getFileName() + ".loading");
+        UserSummarySnapshot next = UserSummarySnapshot.create(temporary, (int) Math.max(size(), userRepository.count()));
+        synchronized (this) {
+            building = next; // С этого момента события применяются и к загружаемому снимку
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<VersionedUserSummaryDto> users = userRepository.streamVersionedSummaries()) {
+                    List<VersionedUserSummaryDto> batch = new ArrayList<>(LOAD_BATCH);
+                    users.forEach(user -> {
+                        batch.add(user);
+                        if (batch.size() == LOAD_BATCH) {
+                            load(next, batch);
+                        }
+                    });
+                    load(next, batch);
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    next.setLoadedAt(System.currentTimeMillis());
+                    next.setCursor(head, startedAt);
+                    next.moveTo(path);
+                    next.checkpoint();
+                    if (snapshot != null) {
+                        snapshot.close(); // Файл уже заменен: закрывается отображение старого
+                    }
+                    snapshot = next;
+                    building = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("User summary snapshot {} loaded with {} users in {} ms ({} bytes)", path, next.size(),
+                    (System.nanoTime() - start) / 1_000_000, next.sizeInBytes());
+        } finally {
+            synchronized (this) {
+                if (building == next) { // Загрузка не удалась: недозагруженный файл не используется
+                    building = null;
+                    next.close();
+                }
+            }
+        }
+    }
+
+    // Контрольная точка: снимок догоняет ленту, и снимок, не изменявшийся после нее, будет принят после аварийного
+    // завершения. Недоступная база не мешает сбросить на диск уже примененные изменения
+    @Scheduled(initialDelayString = "${app.read-model.checkpoint-interval:PT1M}",
+            fixedDelayString = "${app.read-model.checkpoint-interval:PT1M}")
+    public void checkpoint() {
+        try {
+            catchUp();
+        } catch (RuntimeException ex) {
+            log.warn("User summary snapshot could not catch up with the change feed", ex);
+        }
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                snapshot.checkpoint();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Штатное закрытие: снимок будет открыт при следующем запуске
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                snapshot.close();
+                snapshot = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Событие применяется после фиксации: откаченные изменения в снимок не попадают.
+    // Порядок событий не важен - устаревшие версии отбрасываются снимком
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChangeCommitted(EntityChangedEvent event) {
+        if (event.entityType() != User.class) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            synchronized (this) {
+                apply(snapshot, event);
+                apply(building, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void load(UserSummarySnapshot target, List<VersionedUserSummaryDto> batch) {
+        for (VersionedUserSummaryDto user : batch) {
+            target.putIfNewer(user.id(), user.version() != null ? user.version() : 0L, user.name(), user.email());
+        }
+        batch.clear();
+    }
+
+    // Строка ленты изменений пользователя в форме события; состояние берется из JSON представления UserSummary
+    private EntityChangedEvent toEvent(ChangeEventDto change) {
+        String name = null;
+        String email = null;
+        if (change.data() != null) {
+            try {
+                JsonNode data = objectMapper.readTree(change.data());
+                name = data.path("name").textValue();
+                email = data.path("email").textValue();
+            } catch (JsonProcessingException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return new EntityChangedEvent(change.type(), User.class, change.id(), change.userId(), change.version(), name, email);
+    }
+
+    private static void apply(UserSummarySnapshot target, EntityChangedEvent event) {
+        if (target == null) {
+            return;
+        }
+        if (event.type() == ChangeType.DELETE) {
+            target.markDeleted(event.entityId());
+        } else {
+            target.putIfNewer(event.entityId(), event.version() != null ? event.version() : 0L, event.name(), event.email());
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package itk.academy.orekhov.readmodel;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Компактный индекс UserSummary (id, name, email) в памяти без объектов на каждого пользователя.
+// Ключи - примитивные long в хеш-таблице с открытой адресацией (линейное пробирование), значения - номера строк
+// в колонках: версия, смещение в общем массиве байтов UTF-8 и длины name и email.
+// Около 40 байт служебных данных на пользователя плюс сами строки в UTF-8 против сотен байт на запись
+// в Map<Long, User> (объект Long, узел HashMap, сущность, две String с массивами и список заказов).
+// Не потокобезопасен: синхронизацию обеспечивает владелец (InMemoryUserSummaryReadModel)
+public final class UserSummaryIndex {
+
+    private static final long EMPTY_KEY = 0L; // id пользователей начинаются с 1, ноль - пустая ячейка
+    private static final long DELETED = Long.MAX_VALUE; // Версия удаленного пользователя: запаздывающие события его не вернут
+    private static final int NULL_LENGTH = 0xFFFF; // Длина строки null
+    private static final int MAX_LENGTH = 0xFFFE; // Максимальная длина строки в байтах UTF-8
+
+    // Хеш-таблица: ключ -> номер строки
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+    private int keyCount; // Занятые ячейки, включая удаленных пользователей
+
+    // Колонки строк
+    private long[] versions;
+    private int[] offsets; // Начало name в arena; email следует сразу за name
+    private short[] nameLengths;
+    private short[] emailLengths;
+    private int rowCount;
+
+    // Байты строк всех пользователей подряд
+    private byte[] arena;
+    private int arenaSize;
+    private int garbage; // Байты строк, замененных при обновлении или удалении
+
+    private int liveCount; // Пользователи, не помеченные удаленными
+
+    public UserSummaryIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1; // Заполнение не выше 1/2
+        keys = new long[capacity];
+        slots = new int[capacity];
+        mask = capacity - 1;
+        int rows = Math.max(16, expectedSize);
+        versions = new long[rows];
+        offsets = new int[rows];
+        nameLengths = new short[rows];
+        emailLengths = new short[rows];
+        arena = new byte[Math.max(1024, expectedSize * 32)]; // ~32 байта на name и email
+    }
+
+    // Записывает пользователя, если его версия новее сохраненной (события могут приходить не по порядку).
+    // Возвращает false, если запись устарела
+    public boolean putIfNewer(long id, long version, String name, String email) {
+        byte[] nameBytes = encode(name);
+        byte[] emailBytes = encode(email);
+        int slot = find(id);
+        int row;
+        if (keys[slot] == id) {
+            row = slots[slot];
+            if (versions[row] >= version) { // Устаревшее событие или удаленный пользователь (версия DELETED)
+                return false;
+            }
+            garbage += bytes(row);
+        } else {
+            row = newRow();
+            keys[slot] = id;
+            slots[slot] = row;
+            keyCount++;
+            liveCount++;
+            if (keyCount * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+        }
+        versions[row] = version;
+        offsets[row] = append(nameBytes, emailBytes);
+        nameLengths[row] = (short) (name != null ? nameBytes.length : NULL_LENGTH);
+        emailLengths[row] = (short) (email != null ? emailBytes.length : NULL_LENGTH);
+        compactIfNeeded();
+        return true;
+    }
+
+    // Помечает пользователя удаленным; метка снимается только полной перезагрузкой индекса
+    public void markDeleted(long id) {
+        int slot = find(id);
+        int row;
+        if (keys[slot] == id) {
+            row = slots[slot];
+            if (versions[row] == DELETED) {
+                return;
+            }
+            garbage += bytes(row);
+            liveCount--;
+        } else {
+            row = newRow();
+            keys[slot] = id;
+            slots[slot] = row;
+            keyCount++;
+            if (keyCount * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+        }
+        versions[row] = DELETED;
+        offsets[row] = 0;
+        nameLengths[row] = 0;
+        emailLengths[row] = 0;
+    }
+
+    // Пользователь в форме UserSummary или null, если его нет
+    public UserSummaryDto get(long id) {
+        int slot = find(id);
+        if (keys[slot] != id) {
+            return null;
+        }
+        int row = slots[slot];
+        if (versions[row] == DELETED) {
+            return null;
+        }
+        int offset = offsets[row];
+        int nameLength = Short.toUnsignedInt(nameLengths[row]);
+        int emailOffset = offset + (nameLength == NULL_LENGTH ? 0 : nameLength);
+        return new UserSummaryDto(id, decode(offset, nameLength), decode(emailOffset, Short.toUnsignedInt(emailLengths[row])));
+    }
+
+    // Количество пользователей (без удаленных)
+    public int size() {
+        return liveCount;
+    }
+
+    // Память, занятая массивами индекса
+    public long sizeInBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES)
+                + (long) versions.length * (Long.BYTES + Integer.BYTES + 2 * Short.BYTES)
+                + arena.length;
+    }
+
+    // Ячейка с ключом id или пустая ячейка, в которую его нужно записать
+    private int find(long id) {
+        if (id == EMPTY_KEY) {
+            throw new IllegalArgumentException("id must not be 0");
+        }
+        int slot = (int) mix(id) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int newRow() {
+        if (rowCount == versions.length) {
+            int capacity = versions.length + (versions.length >> 1);
+            versions = Arrays.copyOf(versions, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+            emailLengths = Arrays.copyOf(emailLengths, capacity);
+        }
+        return rowCount++;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+
+    // Дописывает name и email в arena и возвращает смещение name
+    private int append(byte[] name, byte[] email) {
+        int length = name.length + email.length;
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length + (arena.length >> 1), arenaSize + length));
+        }
+        int offset = arenaSize;
+        System.arraycopy(name, 0, arena, offset, name.length);
+        System.arraycopy(email, 0, arena, offset + name.length, email.length);
+        arenaSize += length;
+        return offset;
+    }
+
+    // Переписывает arena без замененных строк, когда они занимают больше половины
+    private void compactIfNeeded() {
+        if (garbage < 64 * 1024 || garbage * 2 < arenaSize) {
+            return;
+        }
+        byte[] compacted = new byte[Math.max(1024, (arenaSize - garbage) + ((arenaSize - garbage) >> 1))];
+        int size = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (versions[row] == DELETED) {
+                continue;
+            }
+            int length = bytes(row);
+            System.arraycopy(arena, offsets[row], compacted, size, length);
+            offsets[row] = size;
+            size += length;
+        }
+        arena = compacted;
+        arenaSize = size;
+        garbage = 0;
+    }
+
+    // Байты name и email строки в arena
+    private int bytes(int row) {
+        int name = Short.toUnsignedInt(nameLengths[row]);
+        int email = Short.toUnsignedInt(emailLengths[row]);
+        return (name == NULL_LENGTH ? 0 : name) + (email == NULL_LENGTH ? 0 : email);
+    }
+
+    private String decode(int offset, int length) {
+        return length == NULL_LENGTH ? null : new String(arena, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Value is longer than " + MAX_LENGTH + " bytes");
+        }
+        return bytes;
+    }
+
+    // Финализатор MurmurHash3: последовательные id распределяются по всей таблице
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,17 @@
+package itk.academy.orekhov.readmodel;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+
+// Модель чтения UserSummary: поиск пользователя по id без обращения к Hibernate и базе.
+// Необязательна (app.read-model.type); потребители должны уметь обойтись без нее
+public interface UserSummaryReadModel {
+
+    // Пользователь или null, если его нет в модели или модель еще не загружена
+    UserSummaryDto find(long id);
+
+    // Загружена ли модель: до этого все поиски возвращают null
+    boolean isReady();
+
+    // Количество пользователей в модели
+    long size();
+}
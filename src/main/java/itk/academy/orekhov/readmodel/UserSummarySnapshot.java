@@ -0,0 +1,381 @@
+package itk.academy.orekhov.readmodel;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.event.ChangeCursor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Снимок UserSummary в файле, отображенном в память (вне кучи Java): переживает перезапуск приложения.
+// Структура файла: заголовок 128 байт | хеш-таблица с открытой адресацией из записей по 32 байта | строки UTF-8.
+// Запись: id (8), версия (8), смещение name в области строк (4), длина name (4), длина email (4), резерв (4);
+// email следует сразу за name, длина -1 означает null. Изменения пишутся прямо в файл; переполнение таблицы
+// или области строк переписывает файл целиком с увеличенной емкостью.
+// Размер файла ограничен 2 ГБ (одно отображение). Не потокобезопасен: синхронизацию обеспечивает владелец
+public final class UserSummarySnapshot implements AutoCloseable {
+
+    private static final int MAGIC = 0x55535331; // "USS1"
+    private static final int FORMAT = 2; // 2 - позиция в ленте изменений в заголовке
+    private static final int HEADER_SIZE = 128;
+    private static final int RECORD_SIZE = 32;
+    private static final long DELETED = Long.MAX_VALUE; // Версия удаленного пользователя
+    private static final int NULL_LENGTH = -1;
+
+    // Смещения полей заголовка
+    private static final int H_MAGIC = 0;
+    private static final int H_FORMAT = 4;
+    private static final int H_CLEAN = 8; // 1 - файл закрыт штатно, 0 - открыт для записи или запись прервана
+    private static final int H_CAPACITY = 12; // Количество ячеек хеш-таблицы (степень двойки)
+    private static final int H_KEYS = 16; // Занятые ячейки, включая удаленных пользователей
+    private static final int H_LIVE = 20; // Пользователи без удаленных
+    private static final int H_ARENA_CAPACITY = 24;
+    private static final int H_ARENA_SIZE = 28;
+    private static final int H_GARBAGE = 32; // Байты замененных строк
+    private static final int H_LOADED_AT = 40; // Время последней полной загрузки из базы (epoch millis)
+    private static final int H_CURSOR_TX = 48; // Позиция в ленте изменений (ChangeCursor), до которой снимок актуален
+    private static final int H_CURSOR_ID = 56;
+    private static final int H_SYNCED_AT = 64; // Когда позиция последний раз сверялась с лентой (epoch millis)
+
+    // Смещения полей записи
+    private static final int R_ID = 0;
+    private static final int R_VERSION = 8;
+    private static final int R_OFFSET = 16;
+    private static final int R_NAME_LENGTH = 20;
+    private static final int R_EMAIL_LENGTH = 24;
+
+    private Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int mask;
+    private int arenaStart;
+    private boolean clean; // В заголовке стоит пометка штатного закрытия; снимается перед первым изменением
+
+    private UserSummarySnapshot(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = buffer.getInt(H_CAPACITY);
+        this.mask = capacity - 1;
+        this.arenaStart = HEADER_SIZE + capacity * RECORD_SIZE;
+        this.clean = buffer.getInt(H_CLEAN) == 1;
+    }
+
+    // Новый пустой снимок на expectedSize пользователей; существующий файл перезаписывается
+    public static UserSummarySnapshot create(Path path, int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1; // Заполнение не выше 1/2
+        return create(path, capacity, Math.max(4096, expectedSize * 32)); // ~32 байта на name и email
+    }
+
+    private static UserSummarySnapshot create(Path path, int capacity, int arenaCapacity) {
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE + arenaCapacity;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot would exceed 2 GB: " + size + " bytes");
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size); // Файл заполняется нулями
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_FORMAT, FORMAT);
+            buffer.putInt(H_CAPACITY, capacity);
+            buffer.putInt(H_ARENA_CAPACITY, arenaCapacity);
+            return new UserSummarySnapshot(path, channel, buffer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Открывает снимок, закрытый штатно; null, если файла нет, он другого формата или запись в него была прервана
+    public static UserSummarySnapshot open(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                channel.close();
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int capacity = buffer.getInt(H_CAPACITY);
+            if (buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_FORMAT) != FORMAT || buffer.getInt(H_CLEAN) != 1
+                    || Integer.bitCount(capacity) != 1
+                    || HEADER_SIZE + (long) capacity * RECORD_SIZE + buffer.getInt(H_ARENA_CAPACITY) != size) {
+                channel.close();
+                return null;
+            }
+            return new UserSummarySnapshot(path, channel, buffer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Записывает пользователя, если его версия новее сохраненной. Возвращает false, если запись устарела
+    public boolean putIfNewer(long id, long version, String name, String email) {
+        byte[] nameBytes = name != null ? name.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] emailBytes = email != null ? email.getBytes(StandardCharsets.UTF_8) : null;
+        int length = (nameBytes != null ? nameBytes.length : 0) + (emailBytes != null ? emailBytes.length : 0);
+        int record = record(find(id));
+        boolean exists = buffer.getLong(record + R_ID) == id;
+        if (exists && buffer.getLong(record + R_VERSION) >= version) { // Устаревшее событие или удаленный пользователь
+            return false;
+        }
+        markDirty();
+        if (!ensureCapacity(exists ? 0 : 1, length)) {
+            record = record(find(id)); // Файл переписан: ячейки переместились
+        }
+        if (exists) {
+            addHeader(H_GARBAGE, bytes(record));
+        } else {
+            buffer.putLong(record + R_ID, id);
+            addHeader(H_KEYS, 1);
+            addHeader(H_LIVE, 1);
+        }
+        int offset = buffer.getInt(H_ARENA_SIZE);
+        int position = arenaStart + offset;
+        if (nameBytes != null) {
+            buffer.put(position, nameBytes);
+            position += nameBytes.length;
+        }
+        if (emailBytes != null) {
+            buffer.put(position, emailBytes);
+        }
+        buffer.putInt(H_ARENA_SIZE, offset + length);
+        // Строки записаны до записи, которая на них ссылается
+        buffer.putInt(record + R_OFFSET, offset);
+        buffer.putInt(record + R_NAME_LENGTH, nameBytes != null ? nameBytes.length : NULL_LENGTH);
+        buffer.putInt(record + R_EMAIL_LENGTH, emailBytes != null ? emailBytes.length : NULL_LENGTH);
+        buffer.putLong(record + R_VERSION, version);
+        return true;
+    }
+
+    // Помечает пользователя удаленным; метка снимается только полной перезагрузкой
+    public void markDeleted(long id) {
+        int record = record(find(id));
+        if (buffer.getLong(record + R_ID) == id) {
+            if (buffer.getLong(record + R_VERSION) == DELETED) {
+                return;
+            }
+            markDirty();
+            addHeader(H_GARBAGE, bytes(record));
+            addHeader(H_LIVE, -1);
+        } else {
+            markDirty();
+            if (!ensureCapacity(1, 0)) {
+                record = record(find(id));
+            }
+            buffer.putLong(record + R_ID, id);
+            addHeader(H_KEYS, 1);
+        }
+        buffer.putInt(record + R_NAME_LENGTH, NULL_LENGTH);
+        buffer.putInt(record + R_EMAIL_LENGTH, NULL_LENGTH);
+        buffer.putLong(record + R_VERSION, DELETED);
+    }
+
+    // Пользователь в форме UserSummary или null, если его нет
+    public UserSummaryDto get(long id) {
+        int record = record(find(id));
+        if (buffer.getLong(record + R_ID) != id || buffer.getLong(record + R_VERSION) == DELETED) {
+            return null;
+        }
+        int position = arenaStart + buffer.getInt(record + R_OFFSET);
+        int nameLength = buffer.getInt(record + R_NAME_LENGTH);
+        int emailLength = buffer.getInt(record + R_EMAIL_LENGTH);
+        String name = decode(position, nameLength);
+        String email = decode(position + Math.max(nameLength, 0), emailLength);
+        return new UserSummaryDto(id, name, email);
+    }
+
+    // Количество пользователей (без удаленных)
+    public int size() {
+        return buffer.getInt(H_LIVE);
+    }
+
+    // Размер файла снимка
+    public long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    // Время последней полной загрузки из базы (epoch millis), 0 - снимок не загружался полностью
+    public long loadedAt() {
+        return buffer.getLong(H_LOADED_AT);
+    }
+
+    public void setLoadedAt(long epochMillis) {
+        markDirty();
+        buffer.putLong(H_LOADED_AT, epochMillis);
+    }
+
+    // Позиция в ленте изменений: все изменения до нее включительно уже в снимке
+    public ChangeCursor cursor() {
+        return new ChangeCursor(buffer.getLong(H_CURSOR_TX), buffer.getLong(H_CURSOR_ID));
+    }
+
+    // Время, когда позиция последний раз сверялась с лентой (epoch millis), 0 - никогда
+    public long syncedAt() {
+        return buffer.getLong(H_SYNCED_AT);
+    }
+
+    public void setCursor(ChangeCursor cursor, long syncedAt) {
+        markDirty();
+        buffer.putLong(H_CURSOR_TX, cursor.txId());
+        buffer.putLong(H_CURSOR_ID, cursor.id());
+        buffer.putLong(H_SYNCED_AT, syncedAt);
+    }
+
+    // Контрольная точка: сбрасывает изменения на диск и помечает файл целостным. Следующее изменение
+    // снимет пометку до записи, поэтому сбой после контрольной точки не оставит полузаписанный файл доверенным
+    public void checkpoint() {
+        if (clean) {
+            return;
+        }
+        buffer.force();
+        buffer.putInt(H_CLEAN, 1);
+        buffer.force();
+        clean = true;
+    }
+
+    // Переносит файл снимка (атомарно, с заменой существующего); отображение остается действительным
+    public void moveTo(Path target) {
+        try {
+            buffer.force();
+            Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            path = target;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Закрывает снимок с пометкой штатного закрытия: при следующем open() он будет принят
+    @Override
+    public void close() {
+        checkpoint();
+        try {
+            channel.close(); // Отображение освобождается сборщиком мусора
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Ячейка с ключом id или пустая ячейка, в которую его нужно записать
+    private int find(long id) {
+        if (id == 0) {
+            throw new IllegalArgumentException("id must not be 0");
+        }
+        int slot = (int) mix(id) & mask;
+        long key;
+        while ((key = buffer.getLong(record(slot) + R_ID)) != 0 && key != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void markDirty() {
+        if (clean) {
+            buffer.putInt(H_CLEAN, 0);
+            buffer.force();
+            clean = false;
+        }
+    }
+
+    private int record(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    // Проверяет место под новые ключи и строки; при нехватке переписывает файл и возвращает false
+    private boolean ensureCapacity(int newKeys, int newBytes) {
+        int keys = buffer.getInt(H_KEYS) + newKeys;
+        int arenaSize = buffer.getInt(H_ARENA_SIZE);
+        int arenaCapacity = buffer.getInt(H_ARENA_CAPACITY);
+        if (keys * 2 <= capacity && arenaSize + newBytes <= arenaCapacity) {
+            return true;
+        }
+        int liveBytes = arenaSize - buffer.getInt(H_GARBAGE) + newBytes;
+        rewrite(keys * 2 > capacity ? capacity * 2 : capacity,
+                Math.max(arenaCapacity, liveBytes + (liveBytes >> 1)));
+        return false;
+    }
+
+    // Копирует записи в новый файл с заданной емкостью (без замененных строк) и подменяет им текущий
+    private void rewrite(int newCapacity, int newArenaCapacity) {
+        Path target = path;
+        Path temporary = path.resolveSibling(path.getFileName() + ".rewrite");
+        UserSummarySnapshot copy = create(temporary, newCapacity, newArenaCapacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            int record = record(slot);
+            long id = buffer.getLong(record + R_ID);
+            if (id == 0) {
+                continue;
+            }
+            long version = buffer.getLong(record + R_VERSION);
+            if (version == DELETED) {
+                copy.markDeleted(id);
+                continue;
+            }
+            int position = arenaStart + buffer.getInt(record + R_OFFSET);
+            int nameLength = buffer.getInt(record + R_NAME_LENGTH);
+            copy.putIfNewer(id, version, decode(position, nameLength),
+                    decode(position + Math.max(nameLength, 0), buffer.getInt(record + R_EMAIL_LENGTH)));
+        }
+        copy.setCursor(cursor(), syncedAt());
+        copy.setLoadedAt(loadedAt()); // Копия создана незакрытой: целостной ее сделает checkpoint() или close()
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        copy.moveTo(target);
+        path = copy.path;
+        channel = copy.channel;
+        buffer = copy.buffer;
+        capacity = copy.capacity;
+        mask = copy.mask;
+        arenaStart = copy.arenaStart;
+        clean = copy.clean;
+    }
+
+    // Байты name и email записи в области строк
+    private int bytes(int record) {
+        return Math.max(buffer.getInt(record + R_NAME_LENGTH), 0) + Math.max(buffer.getInt(record + R_EMAIL_LENGTH), 0);
+    }
+
+    private void addHeader(int field, int delta) {
+        buffer.putInt(field, buffer.getInt(field) + delta);
+    }
+
+    private String decode(int position, int length) {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Финализатор MurmurHash3, как в UserSummaryIndex
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
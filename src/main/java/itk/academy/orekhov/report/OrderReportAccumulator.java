@@ -0,0 +1,135 @@
+package itk.academy.orekhov.report;
+
+import itk.academy.orekhov.dto.OrderStatusStatsDto;
+import itk.academy.orekhov.dto.SpenderDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+// Частичный результат отчета по одному диапазону id пользователей: счетчики, распределение по статусам
+// и top-N покупателей. Частичные результаты диапазонов сливаются в один (merge) в любом порядке с одинаковым итогом:
+// суммы считаются в BigDecimal, у которого сложение, в отличие от double, не зависит от порядка.
+// Не потокобезопасен: каждый диапазон заполняет свой экземпляр
+public final class OrderReportAccumulator {
+
+    // Порядок покупателей в отчете: по убыванию суммы, при равенстве - по возрастанию id
+    private static final Comparator<SpenderDto> TOP_ORDER = Comparator.comparing(SpenderDto::totalAmount).reversed()
+            .thenComparingLong(SpenderDto::userId);
+
+    private final int top; // Сколько покупателей хранить
+    private final PriorityQueue<SpenderDto> topSpenders; // Куча с худшим из лучших покупателей в вершине
+    private final Map<String, StatusTotals> byStatus = new TreeMap<>(); // Заказы без статуса - под пустой строкой
+    private long userCount;
+    private long orderCount;
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    // Текущий пользователь: его заказы идут подряд в строках диапазона
+    private long userId;
+    private String name;
+    private String email;
+    private long userOrders;
+    private BigDecimal userAmount;
+
+    public OrderReportAccumulator(int top) {
+        this.top = top;
+        this.topSpenders = new PriorityQueue<>(Math.max(1, top + 1), TOP_ORDER.reversed());
+    }
+
+    // Начинает следующего пользователя, завершая предыдущего
+    public void beginUser(long id, String name, String email) {
+        finishUser();
+        this.userId = id;
+        this.name = name;
+        this.email = email;
+        this.userOrders = 0;
+        this.userAmount = BigDecimal.ZERO;
+        userCount++;
+    }
+
+    // Добавляет заказ текущего пользователя
+    public void addOrder(String status, Double amount) {
+        BigDecimal value = amount != null ? BigDecimal.valueOf(amount) : BigDecimal.ZERO;
+        byStatus.computeIfAbsent(status != null ? status : "", key -> new StatusTotals()).add(1, value);
+        orderCount++;
+        totalAmount = totalAmount.add(value);
+        userOrders++;
+        userAmount = userAmount.add(value);
+    }
+
+    // Завершает последнего пользователя диапазона
+    public void finishUser() {
+        if (userAmount != null) {
+            offer(new SpenderDto(userId, name, email, userOrders, userAmount));
+            userAmount = null;
+        }
+    }
+
+    // Добавляет к этому результату результат другого диапазона и возвращает этот результат
+    public OrderReportAccumulator merge(OrderReportAccumulator other) {
+        finishUser();
+        other.finishUser();
+        userCount += other.userCount;
+        orderCount += other.orderCount;
+        totalAmount = totalAmount.add(other.totalAmount);
+        other.byStatus.forEach((status, totals) ->
+                byStatus.computeIfAbsent(status, key -> new StatusTotals()).add(totals.count, totals.amount));
+        other.topSpenders.forEach(this::offer);
+        return this;
+    }
+
+    public long userCount() {
+        return userCount;
+    }
+
+    public long orderCount() {
+        return orderCount;
+    }
+
+    public BigDecimal totalAmount() {
+        return totalAmount;
+    }
+
+    // Распределение заказов по статусам в порядке статусов (null - заказы без статуса)
+    public List<OrderStatusStatsDto> byStatus() {
+        List<OrderStatusStatsDto> result = new ArrayList<>(byStatus.size());
+        byStatus.forEach((status, totals) ->
+                result.add(new OrderStatusStatsDto(status.isEmpty() ? null : status, totals.count, totals.amount)));
+        return result;
+    }
+
+    // Покупатели с наибольшей суммой заказов по убыванию
+    public List<SpenderDto> topSpenders() {
+        finishUser();
+        List<SpenderDto> result = new ArrayList<>(topSpenders);
+        result.sort(TOP_ORDER);
+        return result;
+    }
+
+    private void offer(SpenderDto spender) {
+        if (top <= 0) {
+            return;
+        }
+        if (topSpenders.size() < top) {
+            topSpenders.add(spender);
+        } else if (TOP_ORDER.compare(spender, topSpenders.peek()) < 0) { // Лучше худшего из сохраненных
+            topSpenders.poll();
+            topSpenders.add(spender);
+        }
+    }
+
+    // Количество и сумма заказов одного статуса
+    private static final class StatusTotals {
+        long count;
+        BigDecimal amount = BigDecimal.ZERO;
+
+        void add(long count, BigDecimal amount) {
+            this.count += count;
+            this.amount = this.amount.add(amount);
+        }
+    }
+}
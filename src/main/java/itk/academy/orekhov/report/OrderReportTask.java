@@ -0,0 +1,52 @@
+package itk.academy.orekhov.report;
+
+import java.util.concurrent.RecursiveTask;
+
+// Задача fork-join над диапазоном id пользователей [fromId, toId): делит диапазон пополам, пока он больше
+// rangeSize, читает листовые диапазоны через RangeReader и сливает частичные результаты половин
+public final class OrderReportTask extends RecursiveTask<OrderReportAccumulator> {
+
+    // Чтение одного диапазона id в частичный результат (в своей транзакции и на своем соединении)
+    @FunctionalInterface
+    public interface RangeReader {
+        void read(long fromId, long toId, OrderReportAccumulator into);
+    }
+
+    private final long fromId; // Первый id диапазона
+    private final long toId; // Id после последнего
+    private final long rangeSize; // Наибольший диапазон, читаемый одним запросом
+    private final int top; // Размер списка крупнейших покупателей
+    private final RangeReader reader;
+
+    public OrderReportTask(long fromId, long toId, long rangeSize, int top, RangeReader reader) {
+        this.fromId = fromId;
+        this.toId = toId;
+        this.rangeSize = rangeSize;
+        this.top = top;
+        this.reader = reader;
+    }
+
+    // Количество листовых диапазонов, на которые будет разбит [fromId, toId)
+    public static int ranges(long fromId, long toId, long rangeSize) {
+        if (toId - fromId <= rangeSize) {
+            return 1;
+        }
+        long middle = fromId + (toId - fromId) / 2;
+        return ranges(fromId, middle, rangeSize) + ranges(middle, toId, rangeSize);
+    }
+
+    @Override
+    protected OrderReportAccumulator compute() {
+        if (toId - fromId <= rangeSize) {
+            OrderReportAccumulator result = new OrderReportAccumulator(top);
+            reader.read(fromId, toId, result);
+            result.finishUser();
+            return result;
+        }
+        long middle = fromId + (toId - fromId) / 2;
+        OrderReportTask right = new OrderReportTask(middle, toId, rangeSize, top, reader);
+        right.fork(); // Правая половина уходит в очередь и может быть украдена свободным потоком
+        OrderReportAccumulator left = new OrderReportTask(fromId, middle, rangeSize, top, reader).compute();
+        return left.merge(right.join());
+    }
+}
@@ -1,6 +1,30 @@
 package itk.academy.orekhov.repository;
 
 import itk.academy.orekhov.entity.Order; // Импортируйте правильный класс сущности Order
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {} // Используйте правильную сущность
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
+// Спецификации используются для страниц заказов с необязательными фильтрами (см. OrderSpecifications)
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> { // Используйте правильную сущность
+
+    // Первые заказы пользователя по id (встроенные заказы представления UserDetails). Запрос кешируется:
+    // повторное чтение берет заказы из второго уровня кеша
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Order> findByUserIdOrderByIdAsc(Long userId, Limit limit);
+
+    // Первые perUser заказов каждого из пользователей одним запросом (оконная функция вместо запроса на пользователя)
+    @Query(value = "select * from (select o.*, row_number() over (partition by o.user_id order by o.id) as rn "
+            + "from orders o where o.user_id in :userIds) o where o.rn <= :perUser order by o.user_id, o.id",
+            nativeQuery = true)
+    List<Order> findFirstOrdersOfUsers(@Param("userIds") Collection<Long> userIds, @Param("perUser") int perUser);
+}
@@ -0,0 +1,36 @@
+package itk.academy.orekhov.repository;
+
+import itk.academy.orekhov.entity.Order;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Условия выборки заказов. В SQL попадают только заданные фильтры: запрос без "? is null or ..."
+// получает точный план с индексом orders(user_id, status, id) или orders(user_id, id)
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    // Заказы пользователя после id after с необязательными фильтрами по статусу и диапазону суммы
+    public static Specification<Order> userOrdersAfter(long userId, long after, String status,
+                                                       Double minAmount, Double maxAmount) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("user").get("id"), userId)); // Внешний ключ, без соединения с users
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            predicates.add(cb.greaterThan(root.get("id"), after)); // Keyset: продолжение после последнего id
+            if (minAmount != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), minAmount));
+            }
+            if (maxAmount != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), maxAmount));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
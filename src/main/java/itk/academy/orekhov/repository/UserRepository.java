@@ -1,6 +1,66 @@
 package itk.academy.orekhov.repository;
 
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.dto.VersionedUserSummaryDto;
 import itk.academy.orekhov.entity.User; // Импортируйте правильный класс сущности User
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<User, Long> {} // Используйте правильную сущность
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom { // Используйте правильную сущность
+
+    // Пользователь вместе с заказами одним запросом (LEFT JOIN FETCH) - для представления UserDetails.
+    // Результат кешируется в кеше запросов: повторное чтение берет пользователя и заказы из второго уровня кеша
+    @EntityGraph(attributePaths = "orders")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Optional<User> findWithOrdersById(Long id);
+
+    // Несколько пользователей вместе с заказами одним запросом - для пакетного чтения деталей
+    @EntityGraph(attributePaths = "orders")
+    List<User> findWithOrdersByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // Keyset-пагинация проекций UserSummary: следующая страница после указанного id (WHERE id > ? ORDER BY id LIMIT ?)
+    @Query("select new itk.academy.orekhov.dto.UserSummaryDto(u.id, u.name, u.email) "
+            + "from User u where u.id > :after order by u.id")
+    List<UserSummaryDto> findSummariesAfter(@Param("after") Long after, Limit limit);
+
+    // Проекция UserSummary по id без загрузки сущности
+    @Query("select new itk.academy.orekhov.dto.UserSummaryDto(u.id, u.name, u.email) from User u where u.id = :id")
+    Optional<UserSummaryDto> findSummaryById(@Param("id") Long id);
+
+    // Проекция UserSummary по email (уникальный индекс ux_users_email)
+    Optional<UserSummaryDto> findSummaryByEmail(String email);
+
+    // Проекции UserSummary пользователей с указанными email - для проверки уникальности пакета одним запросом
+    List<UserSummaryDto> findSummariesByEmailIn(Collection<String> emails);
+
+    // Существует ли пользователь с email (select ... limit 1 по уникальному индексу)
+    boolean existsByEmail(String email);
+
+    // Проекции UserSummary нескольких пользователей по id
+    @Query("select new itk.academy.orekhov.dto.UserSummaryDto(u.id, u.name, u.email) "
+            + "from User u where u.id in :ids order by u.id")
+    List<UserSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Потоковое чтение проекций UserSummary через JDBC-курсор (требует открытой транзакции)
+    @Query("select new itk.academy.orekhov.dto.UserSummaryDto(u.id, u.name, u.email) from User u order by u.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500")) // Размер порции строк, получаемых из курсора за раз
+    Stream<UserSummaryDto> streamSummaries();
+
+    // Потоковое чтение проекций UserSummary с версией строки - для загрузки модели чтения в памяти
+    @Query("select new itk.academy.orekhov.dto.VersionedUserSummaryDto(u.id, u.name, u.email, u.version) from User u")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<VersionedUserSummaryDto> streamVersionedSummaries();
+}
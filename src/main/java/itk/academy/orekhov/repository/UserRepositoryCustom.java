@@ -0,0 +1,21 @@
+package itk.academy.orekhov.repository;
+
+import itk.academy.orekhov.dto.VersionedUserSummaryDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Операции над пользователями, которые Spring Data не выводит из имени метода
+public interface UserRepositoryCustom {
+
+    // Один UPDATE только переданных столбцов (name, email) без загрузки сущности; версия увеличивается.
+    // expectedVersions - допустимые текущие версии (null - любая). Возвращает состояние после изменения
+    // или пустой Optional, если пользователя нет или его версия не среди ожидаемых
+    Optional<VersionedUserSummaryDto> updateColumns(Long id, Map<String, String> columns, Collection<Long> expectedVersions);
+
+    // Один DELETE пользователей по списку id без загрузки сущностей; заказы удаляет база (ON DELETE CASCADE).
+    // Возвращает состояние удаленных пользователей - отсутствующие id в результат не попадают
+    List<VersionedUserSummaryDto> deleteReturning(Collection<Long> ids);
+}
@@ -0,0 +1,121 @@
+package itk.academy.orekhov.repository;
+
+import itk.academy.orekhov.dto.VersionedUserSummaryDto;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Реализация UserRepositoryCustom (Spring Data находит ее по суффиксу Impl)
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final Set<String> COLUMNS = Set.of("name", "email"); // Столбцы, которые можно изменить
+    private static final String[] UPDATE_SPACES = {"users"}; // Таблица, затронутая изменением столбцов
+    private static final String[] DELETE_SPACES = {"users", "orders"}; // Таблицы, затронутые удалением с каскадом
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // UPDATE ... RETURNING: изменение и новое состояние строки за одно обращение к базе.
+    // Hibernate не видит изменение, поэтому запись пользователя удаляется из второго уровня кеша, а кешированные
+    // запросы по users устаревают
+    @Override
+    @Transactional
+    public Optional<VersionedUserSummaryDto> updateColumns(Long id, Map<String, String> columns, Collection<Long> expectedVersions) {
+        StringBuilder set = new StringBuilder();
+        for (String column : columns.keySet()) {
+            if (!COLUMNS.contains(column)) { // Имя столбца попадает в текст SQL, поэтому только из списка
+                throw new IllegalArgumentException("Column " + column + " cannot be updated");
+            }
+            set.append(column).append(" = :").append(column).append(", ");
+        }
+        String where = expectedVersions != null ? " where id = :id and version in (:versions)" : " where id = :id";
+        Query query = entityManager.createNativeQuery("update users set " + set + "version = version + 1" + where
+                + " returning id, name, email, version", Object[].class);
+        columns.forEach(query::setParameter);
+        query.setParameter("id", id);
+        if (expectedVersions != null) {
+            query.setParameter("versions", expectedVersions);
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        evict(id);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(summary(rows.get(0)));
+    }
+
+    // DELETE ... RETURNING: пользователи удаляются одним оператором, их заказы - каскадом внешнего ключа fk_orders_user.
+    // Hibernate не видит удаления, поэтому кеши второго уровня и запросов очищаются здесь же (см. evictDeleted)
+    @Override
+    @Transactional
+    public List<VersionedUserSummaryDto> deleteReturning(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("delete from users where id in (:ids)"
+                        + " returning id, name, email, version", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        List<VersionedUserSummaryDto> deleted = rows.stream().map(UserRepositoryCustomImpl::summary).toList();
+        if (!deleted.isEmpty()) {
+            evictDeleted(deleted.stream().map(VersionedUserSummaryDto::id).toList());
+        }
+        return deleted;
+    }
+
+    // Удаляет из второго уровня кеша пользователей, их коллекции заказов и все заказы (id удаленных каскадом заказов
+    // неизвестны), а кешированные запросы по users и orders делает устаревшими - так же, как Hibernate поступает
+    // со своими массовыми DELETE. Повторяется после завершения транзакции по той же причине, что и в evict
+    private void evictDeleted(List<Long> ids) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        CacheImplementor cache = session.getFactory().getCache();
+        TimestampsCache timestamps = cache.getTimestampsCache();
+        Runnable evict = () -> {
+            for (Long id : ids) {
+                cache.evictEntityData(User.class, id);
+                cache.evictCollectionData(User.class.getName() + ".orders", id);
+            }
+            cache.evictEntityData(Order.class);
+        };
+        evict.run();
+        timestamps.preInvalidate(DELETE_SPACES, session); // До фиксации кешированные результаты запросов не используются
+        session.getActionQueue().registerProcess((success, completedSession) -> {
+            evict.run();
+            timestamps.invalidate(DELETE_SPACES, completedSession);
+        });
+    }
+
+    private static VersionedUserSummaryDto summary(Object[] row) {
+        return new VersionedUserSummaryDto(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                ((Number) row[3]).longValue());
+    }
+
+    // Удаляет пользователя из второго уровня кеша сразу и еще раз после завершения транзакции:
+    // до фиксации параллельные чтения еще видят прежнюю строку и могли снова положить ее в кеш
+    private void evict(Long id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        CacheImplementor cache = session.getFactory().getCache();
+        TimestampsCache timestamps = cache.getTimestampsCache();
+        cache.evictEntityData(User.class, id);
+        // Кешированные запросы по users (например, findWithOrdersById) хранят прежнее состояние пользователя
+        timestamps.preInvalidate(UPDATE_SPACES, session);
+        session.getActionQueue().registerProcess((success, completedSession) -> {
+            cache.evictEntityData(User.class, id);
+            timestamps.invalidate(UPDATE_SPACES, completedSession);
+        });
+    }
+}
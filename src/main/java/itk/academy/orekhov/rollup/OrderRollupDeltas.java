@@ -0,0 +1,150 @@
+package itk.academy.orekhov.rollup;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Изменения сводок заказов одной транзакции. Копятся слушателем OrderRollupListener во время flush, сворачиваются
+// по ключу (десять изменений заказов одного пользователя - одна строка) и записываются пакетом upsert'ов перед
+// фиксацией - на том же соединении и в той же транзакции, что и сами заказы. Откат отбрасывает их вместе с заказами
+final class OrderRollupDeltas implements BeforeTransactionCompletionProcess {
+
+    static final int STRIPES = 16; // Строк на статус в order_status_stats
+
+    private static final String USER_UPSERT_SQL = "insert into user_order_stats as t "
+            + "(user_id, status, order_count, total_amount) values (?, ?, ?, ?) "
+            + "on conflict (user_id, status) do update set order_count = t.order_count + excluded.order_count, "
+            + "total_amount = t.total_amount + excluded.total_amount";
+    private static final String STATUS_UPSERT_SQL = "insert into order_status_stats as t "
+            + "(status, stripe, order_count, total_amount) values (?, ?, ?, ?) "
+            + "on conflict (status, stripe) do update set order_count = t.order_count + excluded.order_count, "
+            + "total_amount = t.total_amount + excluded.total_amount";
+
+    // TreeMap: строки блокируются в одном порядке во всех транзакциях, поэтому встречные транзакции не дают взаимной блокировки
+    private final Map<UserStatus, Delta> byUser = new TreeMap<>();
+    private final Map<String, Delta> byStatus = new TreeMap<>();
+    private final int stripe = ThreadLocalRandom.current().nextInt(STRIPES); // Одна строка общих сводок на статус за транзакцию
+
+    OrderRollupDeltas() {
+    }
+
+    // Изменения текущей транзакции; создаются и регистрируются в сессии Hibernate при первом изменении заказа
+    static OrderRollupDeltas current(SessionImplementor session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            OrderRollupDeltas deltas = new OrderRollupDeltas(); // Транзакция без синхронизации Spring: запись на каждое изменение
+            session.getActionQueue().registerProcess(deltas);
+            return deltas;
+        }
+        OrderRollupDeltas deltas = (OrderRollupDeltas) TransactionSynchronizationManager.getResource(OrderRollupDeltas.class);
+        if (deltas == null) {
+            deltas = new OrderRollupDeltas();
+            session.getActionQueue().registerProcess(deltas);
+            TransactionSynchronizationManager.bindResource(OrderRollupDeltas.class, deltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderRollupDeltas.class);
+                }
+            });
+        }
+        return deltas;
+    }
+
+    // Добавляет (sign = 1) или вычитает (sign = -1) заказ в указанном состоянии
+    void add(OrderRollupState state, int sign) {
+        if (state == null) {
+            return;
+        }
+        String status = state.status() != null ? state.status() : ""; // Заказы без статуса учитываются под пустой строкой
+        BigDecimal amount = state.amount() != null ? BigDecimal.valueOf(state.amount()) : BigDecimal.ZERO;
+        if (sign < 0) {
+            amount = amount.negate();
+        }
+        if (state.userId() != null) {
+            byUser.computeIfAbsent(new UserStatus(state.userId(), status), key -> new Delta()).add(sign, amount);
+        }
+        byStatus.computeIfAbsent(status, key -> new Delta()).add(sign, amount);
+    }
+
+    // Добавляет к общим сводкам статуса готовую разницу - для заказов, удаленных в базе без загрузки (каскад)
+    void addStatus(String status, long count, BigDecimal amount) {
+        byStatus.computeIfAbsent(status, key -> new Delta()).add(count, amount);
+    }
+
+    @Override
+    public void doBeforeTransactionCompletion(SessionImplementor session) {
+        byUser.values().removeIf(Delta::isZero); // Изменения, погасившие друг друга, не трогают строки
+        byStatus.values().removeIf(Delta::isZero);
+        if (byUser.isEmpty() && byStatus.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            if (!byUser.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(USER_UPSERT_SQL)) {
+                    for (Map.Entry<UserStatus, Delta> entry : byUser.entrySet()) {
+                        statement.setLong(1, entry.getKey().userId());
+                        statement.setString(2, entry.getKey().status());
+                        statement.setLong(3, entry.getValue().count);
+                        statement.setBigDecimal(4, entry.getValue().amount);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            if (!byStatus.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(STATUS_UPSERT_SQL)) {
+                    for (Map.Entry<String, Delta> entry : byStatus.entrySet()) {
+                        statement.setString(1, entry.getKey());
+                        statement.setShort(2, (short) stripe);
+                        statement.setLong(3, entry.getValue().count);
+                        statement.setBigDecimal(4, entry.getValue().amount);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        });
+        byUser.clear();
+        byStatus.clear();
+    }
+
+    // Свернутые изменения по пользователю и статусу
+    Map<UserStatus, Delta> byUser() {
+        return byUser;
+    }
+
+    // Свернутые изменения общих сводок по статусу
+    Map<String, Delta> byStatus() {
+        return byStatus;
+    }
+
+    record UserStatus(long userId, String status) implements Comparable<UserStatus> {
+        @Override
+        public int compareTo(UserStatus other) {
+            int result = Long.compare(userId, other.userId);
+            return result != 0 ? result : status.compareTo(other.status);
+        }
+    }
+
+    // Свернутые изменения одной строки сводки
+    static final class Delta {
+        long count; // Изменение количества заказов
+        BigDecimal amount = BigDecimal.ZERO; // Изменение суммы заказов
+
+        void add(long count, BigDecimal amount) {
+            this.count += count;
+            this.amount = this.amount.add(amount);
+        }
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package itk.academy.orekhov.rollup;
+
+import itk.academy.orekhov.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+
+// JPA-слушатель заказов: превращает каждую запись заказа в разницу для сводок (количество и сумма по пользователю
+// и статусу). Разницы копятся за транзакцию и применяются перед фиксацией (OrderRollupDeltas).
+// Для изменения и удаления нужно прежнее состояние строки - оно запоминается в заказе при загрузке и после каждой записи
+public class OrderRollupListener {
+
+    @Value("${app.order-rollups.enabled:true}")
+    private boolean enabled = true; // false - сводки не ведутся (базы без insert ... on conflict, например H2 в бенчмарках)
+
+    @Autowired
+    @Lazy // Слушатель создается вместе с EntityManagerFactory, поэтому EntityManager разрешается при первом изменении
+    private EntityManager entityManager; // Транзакционный EntityManager: сессия Hibernate, выполняющая flush
+
+    @PostLoad // После загрузки из базы или кеша второго уровня
+    public void afterLoad(Order order) {
+        if (!enabled) {
+            return;
+        }
+        order.setRollupState(state(order));
+    }
+
+    @PostPersist // После INSERT
+    public void afterInsert(Order order) {
+        if (!enabled) {
+            return;
+        }
+        OrderRollupState state = state(order);
+        deltas().add(state, 1);
+        order.setRollupState(state);
+    }
+
+    @PostUpdate // После UPDATE: вычитается прежнее состояние и добавляется новое
+    public void afterUpdate(Order order) {
+        if (!enabled) {
+            return;
+        }
+        OrderRollupState state = state(order);
+        if (!state.equals(order.getRollupState())) {
+            OrderRollupDeltas deltas = deltas();
+            deltas.add(order.getRollupState(), -1);
+            deltas.add(state, 1);
+        }
+        order.setRollupState(state);
+    }
+
+    @PostRemove // После DELETE: вычитается состояние, записанное в базе
+    public void afterDelete(Order order) {
+        if (!enabled) {
+            return;
+        }
+        deltas().add(order.getRollupState() != null ? order.getRollupState() : state(order), -1);
+        order.setRollupState(null);
+    }
+
+    private OrderRollupDeltas deltas() {
+        return OrderRollupDeltas.current(entityManager.unwrap(SessionImplementor.class));
+    }
+
+    private static OrderRollupState state(Order order) {
+        Long userId = order.getUser() != null ? order.getUser().getId() : null; // id прокси не требует загрузки пользователя
+        return new OrderRollupState(userId, order.getStatus(), order.getAmount());
+    }
+}
@@ -0,0 +1,9 @@
+package itk.academy.orekhov.rollup;
+
+// Значения заказа, от которых зависят сводки, в том виде, в каком они записаны в базе
+public record OrderRollupState(
+        Long userId, // Владелец заказа (null - заказ без пользователя, учитывается только в общих сводках)
+        String status, // Статус заказа
+        Double amount // Сумма заказа
+) {
+}
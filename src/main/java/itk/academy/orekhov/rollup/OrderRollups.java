@@ -0,0 +1,44 @@
+package itk.academy.orekhov.rollup;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+// Сводки заказов, удаленных в обход контекста персистентности (каскад ON DELETE в базе не вызывает OrderRollupListener).
+// Вызывается в транзакции, удалившей строки
+@Component
+public class OrderRollups {
+
+    @PersistenceContext
+    private EntityManager entityManager; // Транзакционный EntityManager: разницы применяются его сессией перед фиксацией
+
+    @Value("${app.order-rollups.enabled:true}")
+    private boolean enabled; // false - сводки не ведутся
+
+    // Убирает сводки удаленных пользователей: их строки user_order_stats удаляются одним оператором, а возвращенные
+    // количества и суммы по статусам вычитаются из общих сводок. Сами заказы при этом не читаются
+    public void removeUsers(Collection<Long> userIds) {
+        if (!enabled || userIds.isEmpty()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("delete from user_order_stats where user_id in (:ids)"
+                        + " returning status, order_count, total_amount", Object[].class)
+                .setParameter("ids", userIds)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return;
+        }
+        OrderRollupDeltas deltas = OrderRollupDeltas.current(entityManager.unwrap(SessionImplementor.class));
+        for (Object[] row : rows) {
+            BigDecimal amount = row[2] instanceof BigDecimal value ? value : new BigDecimal(row[2].toString());
+            deltas.addStatus((String) row[0], -((Number) row[1]).longValue(), amount.negate());
+        }
+    }
+}
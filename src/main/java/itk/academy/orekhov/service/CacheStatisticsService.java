@@ -0,0 +1,57 @@
+package itk.academy.orekhov.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import itk.academy.orekhov.dto.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.cache.CacheManager;
+import java.util.Arrays;
+import java.util.List;
+
+@Service // Сервис статистики кеша второго уровня Hibernate
+public class CacheStatisticsService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Фабрика, из которой берутся статистика и регионы кеша
+
+    // Статистика по всем регионам: попадания, промахи и записи - из Hibernate, вытеснения и размер - из Caffeine
+    public List<CacheRegionStats> getRegionStats() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        CacheManager cacheManager = cacheManager(sessionFactory);
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> regionStats(region, statistics.getCacheRegionStatistics(region), cacheManager))
+                .toList();
+    }
+
+    private static CacheRegionStats regionStats(String region, CacheRegionStatistics hibernate, CacheManager cacheManager) {
+        long hits = hibernate != null ? hibernate.getHitCount() : 0;
+        long misses = hibernate != null ? hibernate.getMissCount() : 0;
+        long puts = hibernate != null ? hibernate.getPutCount() : 0;
+        Cache<?, ?> caffeine = caffeineCache(cacheManager, region);
+        long evictions = caffeine != null ? caffeine.stats().evictionCount() : 0;
+        long size = caffeine != null ? caffeine.estimatedSize() : 0;
+        return new CacheRegionStats(region, hits, misses, puts, evictions, size);
+    }
+
+    // Менеджер JCache, через который Hibernate создал регионы (null, если кеш второго уровня выключен)
+    private static CacheManager cacheManager(SessionFactoryImplementor sessionFactory) {
+        if (sessionFactory.getCache().getRegionFactory() instanceof JCacheRegionFactory regionFactory) {
+            return regionFactory.getCacheManager();
+        }
+        return null;
+    }
+
+    // Нативный кеш Caffeine под регионом JCache
+    private static Cache<?, ?> caffeineCache(CacheManager cacheManager, String region) {
+        javax.cache.Cache<Object, Object> cache = cacheManager != null ? cacheManager.getCache(region) : null;
+        return cache != null ? cache.unwrap(Cache.class) : null;
+    }
+}
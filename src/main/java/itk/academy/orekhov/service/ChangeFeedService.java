@@ -0,0 +1,104 @@
+package itk.academy.orekhov.service;
+
+import itk.academy.orekhov.dto.ChangeEventDto;
+import itk.academy.orekhov.event.ChangeCursor;
+import itk.academy.orekhov.event.ChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+// Чтение ленты изменений из outbox (change_events) и очистка старых записей.
+// Контракт ленты: DELETE пользователя означает удаление и всех его заказов. Заказы удаляются вместе с пользователем
+// каскадом в базе (ON DELETE CASCADE) и отдельных строк Order DELETE не получают; потребитель, хранящий заказы,
+// удаляет их по userId строки User DELETE
+@Service
+public class ChangeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    // Порядок (tx_id, id) и граница по самой старой незавершенной транзакции: все транзакции ниже
+    // pg_snapshot_xmin завершены, поэтому за курсором не может появиться новая строка
+    private static final String FEED_SQL = "select id, tx_id, entity_type, entity_id, user_id, change_type, version, "
+            + "payload, created_at from change_events "
+            + "where (tx_id, id) > (?, ?) and tx_id < pg_snapshot_xmin(pg_current_snapshot())::text::bigint "
+            + "order by tx_id, id limit ?";
+    // Последняя строка, видимая в ленте (с той же границей)
+    private static final String HEAD_SQL = "select tx_id, id from change_events "
+            + "where tx_id < pg_snapshot_xmin(pg_current_snapshot())::text::bigint "
+            + "order by tx_id desc, id desc limit 1";
+
+    private final JdbcTemplate jdbcTemplate; // Отдельный JdbcTemplate с размером порции курсора
+    private final TransactionTemplate transactionTemplate; // Транзакция только для чтения на время прохода
+    private final Duration retention; // Срок хранения изменений
+
+    public ChangeFeedService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             @Value("${app.changes.fetch-size:500}") int fetchSize,
+                             @Value("${app.changes.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize); // Изменения читаются курсором порциями, а не всей выборкой сразу
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.retention = retention;
+    }
+
+    // Передает action не более limit изменений после курсора в порядке фиксации; возвращает их количество
+    public long forEachChange(ChangeCursor after, int limit, Consumer<ChangeEventDto> action) {
+        Long count = transactionTemplate.execute(status -> {
+            long[] rows = {0};
+            jdbcTemplate.query(FEED_SQL, rs -> {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                long userId = rs.getLong("user_id");
+                Long user = rs.wasNull() ? null : userId;
+                long versionValue = rs.getLong("version");
+                Long version = rs.wasNull() ? null : versionValue;
+                action.accept(new ChangeEventDto(
+                        new ChangeCursor(rs.getLong("tx_id"), rs.getLong("id")).encode(),
+                        rs.getString("entity_type"),
+                        rs.getLong("entity_id"),
+                        user,
+                        ChangeType.valueOf(rs.getString("change_type")),
+                        version,
+                        createdAt != null ? createdAt.toInstant() : null,
+                        rs.getString("payload")));
+                rows[0]++;
+            }, after.txId(), after.id(), limit);
+            return rows[0];
+        });
+        return count != null ? count : 0L;
+    }
+
+    // Курсор последнего изменения, уже видимого в ленте (START, если лента пуста): все изменения до него
+    // зафиксированы, а следующие будут отданы forEachChange после этого курсора
+    public ChangeCursor head() {
+        return jdbcTemplate.query(HEAD_SQL, rs -> rs.next()
+                ? new ChangeCursor(rs.getLong("tx_id"), rs.getLong("id"))
+                : ChangeCursor.START);
+    }
+
+    // Срок хранения изменений: потребитель, не читавший ленту дольше, мог пропустить удаленные строки
+    public Duration retention() {
+        return retention;
+    }
+
+    // Удаляет изменения старше срока хранения: потребитель, отставший сильнее, должен синхронизироваться заново
+    @Scheduled(initialDelayString = "${app.changes.purge-interval:PT1H}",
+            fixedDelayString = "${app.changes.purge-interval:PT1H}")
+    public void purge() {
+        int deleted = jdbcTemplate.update("delete from change_events where created_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+        if (deleted > 0) {
+            log.info("Purged {} change events older than {}", deleted, retention);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package itk.academy.orekhov.service;
+
+import itk.academy.orekhov.dto.OrderReportDto;
+import itk.academy.orekhov.report.OrderReportAccumulator;
+import itk.academy.orekhov.report.OrderReportTask;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+// Отчеты по всем пользователям и заказам (крупнейшие покупатели, распределение по статусам).
+// Пространство id пользователей делится на диапазоны, которые читаются и агрегируются параллельно
+// в отдельном пуле fork-join: каждый диапазон - свой запрос в своей транзакции только для чтения
+// на своем соединении из пула. Частичные результаты сливаются по мере завершения половин
+@Service
+public class OrderReportService {
+
+    // Заказы пользователя идут подряд, поэтому его сумма собирается из соседних строк; заказы без пользователя не учитываются
+    private static final String RANGE_SQL = "select u.id, u.name, u.email, o.id as order_id, o.status, o.amount "
+            + "from users u left join orders o on o.user_id = u.id "
+            + "where u.id >= ? and u.id < ? order by u.id";
+
+    private static final String BOUNDS_SQL = "select min(id) as min_id, max(id) as max_id from users";
+
+    private final JdbcTemplate jdbcTemplate; // Отдельный JdbcTemplate с размером порции курсора
+    private final TransactionTemplate transactionTemplate; // Транзакция только для чтения на каждый диапазон
+    private final ForkJoinPool pool; // Потоки отчетов; не общий пул, чтобы блокирующий JDBC не занимал его
+    private final long rangeSize; // Наибольший диапазон id, читаемый одним запросом
+
+    public OrderReportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                              @Value("${app.reports.fetch-size:1000}") int fetchSize,
+                              @Value("${app.reports.range-size:10000}") long rangeSize,
+                              @Value("${app.reports.parallelism:0}") int parallelism,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxPoolSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rangeSize = rangeSize;
+        // По умолчанию - по потоку на ядро, но не больше половины пула соединений: запросам API остается вторая половина
+        int threads = parallelism > 0 ? parallelism
+                : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), maxPoolSize / 2));
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("order-report-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    // Строит отчет с top крупнейшими покупателями
+    public OrderReportDto buildReport(int top) {
+        long started = System.nanoTime();
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(BOUNDS_SQL);
+        OrderReportAccumulator report;
+        int ranges = 0;
+        if (bounds.get("min_id") == null) { // Пользователей нет
+            report = new OrderReportAccumulator(top);
+        } else {
+            long fromId = ((Number) bounds.get("min_id")).longValue();
+            long toId = ((Number) bounds.get("max_id")).longValue() + 1;
+            ranges = OrderReportTask.ranges(fromId, toId, rangeSize);
+            report = pool.invoke(new OrderReportTask(fromId, toId, rangeSize, top, this::readRange));
+        }
+        return new OrderReportDto(report.userCount(), report.orderCount(), report.totalAmount(), report.byStatus(),
+                report.topSpenders(), ranges, pool.getParallelism(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Читает пользователей с заказами из диапазона [fromId, toId) в частичный результат
+    private void readRange(long fromId, long toId, OrderReportAccumulator into) {
+        transactionTemplate.executeWithoutResult(status -> {
+            long[] current = {0}; // id пользователя, чьи строки сейчас читаются
+            jdbcTemplate.query(RANGE_SQL, rs -> {
+                long userId = rs.getLong("id");
+                if (userId != current[0]) {
+                    into.beginUser(userId, rs.getString("name"), rs.getString("email"));
+                    current[0] = userId;
+                }
+                rs.getLong("order_id");
+                if (!rs.wasNull()) { // У пользователя без заказов поля заказа равны NULL
+                    double amount = rs.getDouble("amount");
+                    into.addOrder(rs.getString("status"), rs.wasNull() ? null : amount);
+                }
+            }, fromId, toId);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,56 @@
+package itk.academy.orekhov.service;
+
+import itk.academy.orekhov.dto.OrderStatsDto;
+import itk.academy.orekhov.dto.OrderStatusStatsDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// Сводки заказов для дашбордов. Читаются из таблиц user_order_stats и order_status_stats, которые обновляются
+// вместе с каждым изменением заказа (OrderRollupListener), поэтому запрос никогда не сканирует orders
+@Service
+public class OrderStatsService {
+
+    // Строки пользователя по первичному ключу (user_id, status); нулевые строки остаются после удаления всех заказов статуса
+    private static final String USER_STATS_SQL = "select status, order_count, total_amount from user_order_stats "
+            + "where user_id = ? and order_count <> 0 order by status";
+
+    // Общие сводки хранятся полосами (stripe) по статусу - суммируются при чтении
+    private static final String STATUS_STATS_SQL = "select status, sum(order_count) as order_count, "
+            + "sum(total_amount) as total_amount from order_status_stats group by status "
+            + "having sum(order_count) <> 0 order by status";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate; // Простые запросы к таблицам сводок
+
+    // Сводка заказов пользователя; пустая, если заказов нет
+    public OrderStatsDto getUserStats(long userId) {
+        return toStats(userId, jdbcTemplate.query(USER_STATS_SQL, OrderStatsService::mapStatus, userId));
+    }
+
+    // Сводка всех заказов по статусам
+    public OrderStatsDto getStats() {
+        return toStats(null, jdbcTemplate.query(STATUS_STATS_SQL, OrderStatsService::mapStatus));
+    }
+
+    private static OrderStatsDto toStats(Long userId, List<OrderStatusStatsDto> byStatus) {
+        long count = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderStatusStatsDto status : byStatus) {
+            count += status.orderCount();
+            total = total.add(status.totalAmount());
+        }
+        return new OrderStatsDto(userId, count, total, byStatus);
+    }
+
+    private static OrderStatusStatsDto mapStatus(ResultSet rs, int rowNum) throws SQLException {
+        String status = rs.getString("status");
+        return new OrderStatusStatsDto(status.isEmpty() ? null : status, // Заказы без статуса хранятся под пустой строкой
+                rs.getLong("order_count"), rs.getBigDecimal("total_amount"));
+    }
+}
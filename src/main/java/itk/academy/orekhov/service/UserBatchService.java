@@ -0,0 +1,171 @@
+package itk.academy.orekhov.service;
+
+import itk.academy.orekhov.dto.BatchItemResult;
+import itk.academy.orekhov.dto.UserDto;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Пакетные операции над пользователями: один запрос - одна транзакция, SQL уходит в базу пакетами JDBC.
+// Каждый элемент проверяется отдельно, поэтому ошибка в одном элементе не отменяет обработку остальных.
+// Уникальность email тоже проверяется заранее, одним запросом на пакет: нарушение ux_users_email при flush
+// откатило бы всю транзакцию и весь пакет. Email, занятый в базе другим пользователем, считается занятым,
+// даже если этот пользователь меняет его в том же пакете (уникальный индекс проверяется на каждой строке UPDATE)
+@Service
+public class UserBatchService {
+
+    private static final String EMAIL_TAKEN = "email: already exists"; // Ошибка элемента с занятым email
+
+    @PersistenceContext
+    private EntityManager entityManager; // Прямой доступ к контексту персистентности для flush/clear
+
+    @Autowired
+    private UserRepository userRepository; // Репозиторий пользователей
+
+    @Autowired
+    private UserService userService; // Удаление пользователей одним DELETE
+
+    @Autowired
+    private Validator validator; // Ручная валидация элементов вместо @Valid на всем массиве
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize; // Совпадает с размером пакета JDBC
+
+    // Создание пользователей; id выдаются из пула последовательности без обращения к базе на каждую строку
+    @Transactional
+    public List<BatchItemResult> createUsers(List<UserDto> items) {
+        Map<String, Long> owners = emailOwners(items);
+        Set<String> claimed = new HashSet<>(); // Email, уже занятые предыдущими элементами пакета
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        int persisted = 0;
+        for (int i = 0; i < items.size(); i++) {
+            UserDto item = items.get(i);
+            String error = validate(item);
+            if (error != null) {
+                results.add(BatchItemResult.failure(i, null, HttpStatus.BAD_REQUEST.value(), error));
+                continue;
+            }
+            if (owners.containsKey(item.getEmail()) || !claimed.add(item.getEmail())) {
+                results.add(BatchItemResult.failure(i, null, HttpStatus.CONFLICT.value(), EMAIL_TAKEN));
+                continue;
+            }
+            User user = new User();
+            user.setName(item.getName());
+            user.setEmail(item.getEmail());
+            entityManager.persist(user); // INSERT откладывается до flush, id уже назначен
+            results.add(BatchItemResult.success(i, user.getId(), HttpStatus.CREATED.value()));
+            if (++persisted % batchSize == 0) {
+                flushAndClear(); // Отправляем очередной пакет и не держим в контексте тысячи сущностей
+            }
+        }
+        return results;
+    }
+
+    // Обновление имени и email; все пользователи загружаются одним запросом, UPDATE отправляются пакетами при коммите
+    @Transactional
+    public List<BatchItemResult> updateUsers(List<UserDto> items) {
+        Map<Long, User> users = findAllById(items.stream()
+                .filter(Objects::nonNull)
+                .map(UserDto::getId)
+                .collect(Collectors.toSet()));
+        Map<String, Long> owners = emailOwners(items);
+        Set<String> claimed = new HashSet<>();
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            UserDto item = items.get(i);
+            String error = item != null && item.getId() == null ? "id: must not be null" : validate(item);
+            if (error != null) {
+                results.add(BatchItemResult.failure(i, item != null ? item.getId() : null, HttpStatus.BAD_REQUEST.value(), error));
+                continue;
+            }
+            User user = users.get(item.getId());
+            if (user == null) {
+                results.add(BatchItemResult.failure(i, item.getId(), HttpStatus.NOT_FOUND.value(), "User not found"));
+                continue;
+            }
+            Long owner = owners.get(item.getEmail());
+            if ((owner != null && !owner.equals(user.getId())) || !claimed.add(item.getEmail())) {
+                results.add(BatchItemResult.failure(i, item.getId(), HttpStatus.CONFLICT.value(), EMAIL_TAKEN));
+                continue;
+            }
+            user.setName(item.getName()); // Изменения записываются механизмом dirty checking
+            user.setEmail(item.getEmail());
+            results.add(BatchItemResult.success(i, user.getId(), HttpStatus.OK.value()));
+        }
+        return results;
+    }
+
+    // Удаление пользователей одним DELETE по всем id; заказы удаляет база каскадом (UserService.deleteUsers)
+    @Transactional
+    public List<BatchItemResult> deleteUsers(List<Long> ids) {
+        Set<Long> deleted = userService.deleteUsers(ids.stream().filter(Objects::nonNull).distinct().toList());
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null || !deleted.remove(id)) { // Повторный id в том же запросе уже удален
+                results.add(BatchItemResult.failure(i, id, HttpStatus.NOT_FOUND.value(), "User not found"));
+                continue;
+            }
+            results.add(BatchItemResult.success(i, id, HttpStatus.NO_CONTENT.value()));
+        }
+        return results;
+    }
+
+    // Пользователи, которым в базе принадлежат email элементов пакета: email -> id (один запрос WHERE email IN (...))
+    private Map<String, Long> emailOwners(List<UserDto> items) {
+        Set<String> emails = items.stream()
+                .filter(Objects::nonNull)
+                .map(UserDto::getEmail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (emails.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findSummariesByEmailIn(emails).stream()
+                .collect(Collectors.toMap(UserSummaryDto::email, UserSummaryDto::id));
+    }
+
+    // Загрузка пользователей одним запросом WHERE id IN (...)
+    private Map<Long, User> findAllById(Collection<Long> ids) {
+        List<Long> existing = ids.stream().filter(Objects::nonNull).distinct().toList();
+        return userRepository.findAllById(existing).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    // Первое нарушение валидации элемента в формате "поле: ошибка", либо null
+    private String validate(UserDto item) {
+        if (item == null) {
+            return "item: must not be null";
+        }
+        Set<ConstraintViolation<UserDto>> violations = validator.validate(item);
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted() // Стабильный порядок сообщений
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package itk.academy.orekhov.service;
+
+import itk.academy.orekhov.dto.UserDetailsDto;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.repository.OrderRepository;
+import itk.academy.orekhov.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Сборка представления UserDetails с ограниченным числом встроенных заказов: пользователь с десятками тысяч
+// заказов не раздувает ответ, остальные заказы читаются постранично через GET /api/users/{id}/orders
+@Service
+public class UserDetailsService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${app.details.max-orders:100}")
+    private int maxOrders; // Сколько заказов встраивается в представление UserDetails
+
+    // Детали одного пользователя: первые заказы читаются одним запросом с LIMIT
+    public UserDetailsDto details(User user) {
+        // Читаем на один заказ больше, чтобы узнать, есть ли продолжение
+        List<Order> orders = orderRepository.findByUserIdOrderByIdAsc(user.getId(), Limit.of(maxOrders + 1));
+        return UserDetailsDto.capped(user.getId(), user.getName(), user.getEmail(), orders, maxOrders);
+    }
+
+    // Детали нескольких пользователей в порядке id: два запроса независимо от количества пользователей
+    public List<UserDetailsDto> details(Collection<Long> ids) {
+        List<UserSummaryDto> users = userRepository.findSummariesByIdIn(ids);
+        if (users.isEmpty()) {
+            return List.of(); // Отсутствующие id просто не попадают в ответ
+        }
+        Map<Long, List<Order>> ordersByUser = orderRepository
+                .findFirstOrdersOfUsers(users.stream().map(UserSummaryDto::id).toList(), maxOrders + 1).stream()
+                .collect(Collectors.groupingBy(order -> order.getUser().getId())); // id берется из прокси без запроса
+        return users.stream()
+                .map(user -> UserDetailsDto.capped(user.id(), user.name(), user.email(),
+                        ordersByUser.getOrDefault(user.id(), List.of()), maxOrders))
+                .toList();
+    }
+}
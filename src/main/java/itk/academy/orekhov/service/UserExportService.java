@@ -0,0 +1,107 @@
+package itk.academy.orekhov.service;
+
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.export.UserExportWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Выгрузка всех пользователей с заказами одним упорядоченным проходом по LEFT JOIN.
+// Строки читаются серверным курсором порциями по fetch-size, в памяти находится только текущий пользователь
+@Service
+public class UserExportService {
+
+    // Заказы пользователя идут подряд, поэтому пользователь собирается из соседних строк результата
+    private static final String EXPORT_SQL = "select u.id as user_id, u.name, u.email, "
+            + "o.id as order_id, o.product, o.amount, o.status "
+            + "from users u left join orders o on o.user_id = u.id "
+            + "where u.id > ? order by u.id, o.id";
+
+    private final JdbcTemplate jdbcTemplate; // Отдельный JdbcTemplate с размером порции курсора
+    private final TransactionTemplate transactionTemplate; // Транзакция только для чтения на всю выгрузку
+
+    public UserExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize); // PostgreSQL использует курсор только при fetch size > 0 вне autocommit
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // Выгружает пользователей с id больше after (0 - с начала) и возвращает количество выгруженных пользователей.
+    // Выгрузку можно продолжить после обрыва, передав id последнего полученного пользователя
+    public long exportUsers(long after, UserExportWriter writer) throws IOException {
+        try {
+            Long exported = transactionTemplate.execute(status -> {
+                UserAssembler assembler = new UserAssembler(writer);
+                jdbcTemplate.query(EXPORT_SQL, assembler::processRow, after);
+                return assembler.finish();
+            });
+            writer.finish();
+            return exported != null ? exported : 0L;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause(); // Клиент оборвал соединение или поток ответа недоступен
+        }
+    }
+
+    // Собирает пользователя из подряд идущих строк и отдает его writer при смене user_id
+    private static final class UserAssembler {
+
+        private final UserExportWriter writer;
+        private User current;
+        private long exported;
+
+        UserAssembler(UserExportWriter writer) {
+            this.writer = writer;
+        }
+
+        void processRow(ResultSet rs) throws SQLException {
+            long userId = rs.getLong("user_id");
+            if (current == null || current.getId() != userId) {
+                flush();
+                current = new User();
+                current.setId(userId);
+                current.setName(rs.getString("name"));
+                current.setEmail(rs.getString("email"));
+            }
+            long orderId = rs.getLong("order_id");
+            if (!rs.wasNull()) { // У пользователя без заказов поля заказа равны NULL
+                Order order = new Order();
+                order.setId(orderId);
+                order.setProduct(rs.getString("product"));
+                double amount = rs.getDouble("amount");
+                order.setAmount(rs.wasNull() ? null : amount);
+                order.setStatus(rs.getString("status"));
+                order.setUser(current);
+                current.getOrders().add(order);
+            }
+        }
+
+        long finish() {
+            flush();
+            return exported;
+        }
+
+        private void flush() {
+            if (current == null) {
+                return;
+            }
+            try {
+                writer.write(current);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            exported++;
+            current = null;
+        }
+    }
+}
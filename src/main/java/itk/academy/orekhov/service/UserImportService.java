@@ -0,0 +1,217 @@
+package itk.academy.orekhov.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import itk.academy.orekhov.dto.ImportReport;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Импорт пользователей с заказами из NDJSON (один JSON-объект на строку).
+// Вход читается построчно, строки пишутся порциями в отдельных транзакциях, после каждой порции
+// контекст персистентности очищается - память не зависит от размера входа
+@Service
+public class UserImportService {
+
+    private static final String CACHE_STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    @PersistenceContext
+    private EntityManager entityManager; // Контекст персистентности текущей транзакции порции
+
+    @Autowired
+    private ObjectMapper objectMapper; // Фабрика потоковых парсеров и настройки десериализации
+
+    @Autowired
+    private Validator validator; // Проверка ограничений Bean Validation у User и Order
+
+    private final TransactionTemplate transactionTemplate; // Транзакция на каждую порцию
+
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize; // Количество строк в одной транзакции
+
+    @Value("${app.import.max-rejects:1000}")
+    private int maxRejects; // Максимальный размер списка отклоненных строк в отчете
+
+    public UserImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Импортирует пользователей из потока NDJSON и возвращает отчет
+    public ImportReport importUsers(InputStream input) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(User.class);
+        Progress progress = new Progress(maxRejects);
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long number = 0;
+        String text;
+        while ((text = lines.readLine()) != null) {
+            number++;
+            if (text.isBlank()) {
+                continue; // Пустые строки (например, в конце файла) пропускаются
+            }
+            try {
+                User user = parse(reader, text);
+                String error = validate(user);
+                if (error != null) {
+                    progress.reject(number, error);
+                } else {
+                    chunk.add(new Line(number, user));
+                }
+            } catch (JsonProcessingException ex) {
+                progress.reject(number, "Malformed JSON: " + ex.getOriginalMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, progress);
+                chunk.clear();
+            }
+        }
+        writeChunk(chunk, progress);
+        return progress.toReport();
+    }
+
+    // Разбор одной строки потоковым парсером; в строке должен быть ровно один JSON-объект
+    private User parse(ObjectReader reader, String text) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Line is not a JSON object");
+            }
+            User user = reader.readValue(parser);
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after JSON object");
+            }
+            return user;
+        }
+    }
+
+    // Первое нарушение ограничений пользователя или его заказов в формате "поле: ошибка", либо null
+    private String validate(User user) {
+        String error = firstViolation(validator.validate(user), "");
+        if (error != null || user.getOrders() == null) {
+            return error;
+        }
+        for (int i = 0; i < user.getOrders().size(); i++) {
+            Order order = user.getOrders().get(i);
+            if (order == null) {
+                return "orders[" + i + "]: must not be null";
+            }
+            error = firstViolation(validator.validate(order), "orders[" + i + "].");
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    private static <T> String firstViolation(Set<ConstraintViolation<T>> violations, String prefix) {
+        return violations.stream()
+                .map(violation -> prefix + violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted() // Стабильный порядок сообщений
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Запись порции одной транзакцией; если порция не записалась, строки повторяются по одной,
+    // чтобы отклонить только те, на которых падает база
+    private void writeChunk(List<Line> chunk, Progress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            persist(chunk);
+            progress.imported += chunk.size();
+        } catch (DataAccessException | PersistenceException | TransactionException ex) {
+            if (chunk.size() == 1) {
+                progress.reject(chunk.get(0).number(), "Rejected by database: " + rootMessage(ex));
+                return;
+            }
+            for (Line line : chunk) {
+                writeChunk(List.of(line), progress);
+            }
+        }
+    }
+
+    private void persist(List<Line> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Импортированные строки не кладутся во второй уровень кеша, чтобы не вытеснять горячие записи
+            entityManager.setProperty(CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+            for (Line line : chunk) {
+                entityManager.persist(prepare(line.user()));
+            }
+            entityManager.flush(); // Пакеты INSERT уходят в базу внутри транзакции
+            entityManager.clear(); // Порция больше не нужна в контексте персистентности
+        });
+    }
+
+    // Сброс служебных полей: id и версия назначаются при записи (в том числе при повторе после отката)
+    private static User prepare(User user) {
+        user.setId(null);
+        user.setVersion(null);
+        if (user.getOrders() == null) {
+            user.setOrders(new ArrayList<>());
+        }
+        for (Order order : user.getOrders()) {
+            order.setId(null);
+            order.setVersion(null);
+            order.setUser(user);
+        }
+        return user;
+    }
+
+    private static String rootMessage(Exception ex) {
+        return NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+    }
+
+    // Строка входа, прошедшая разбор и валидацию
+    private record Line(long number, User user) {
+    }
+
+    // Накопление счетчиков и ограниченного списка отклонений
+    private static final class Progress {
+
+        private final int maxRejects;
+        private final List<ImportReport.Reject> rejects = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        Progress(int maxRejects) {
+            this.maxRejects = maxRejects;
+        }
+
+        void reject(long line, String error) {
+            rejected++;
+            if (rejects.size() < maxRejects) {
+                rejects.add(new ImportReport.Reject(line, error));
+            }
+        }
+
+        ImportReport toReport() {
+            return new ImportReport(imported, rejected, rejects, rejected > rejects.size());
+        }
+    }
+}
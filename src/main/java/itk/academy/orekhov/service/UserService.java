@@ -1,50 +1,266 @@
 package itk.academy.orekhov.service;
 
+import itk.academy.orekhov.cache.EmailBloomFilter;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.dto.VersionedUserSummaryDto;
 import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.event.ChangeRecorder;
+import itk.academy.orekhov.event.ChangeType;
+import itk.academy.orekhov.readmodel.UserSummaryReadModel;
 import itk.academy.orekhov.repository.UserRepository;
+import itk.academy.orekhov.rollup.OrderRollups;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service // Аннотация указывает, что класс является сервисом и будет управляться Spring
 public class UserService {
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "email"); // Поля, изменяемые через PATCH
+
     @Autowired
     private UserRepository userRepository; // Инъекция репозитория для работы с данными пользователя
 
+    @Autowired
+    private EmailBloomFilter emailBloomFilter; // Быстрый отрицательный ответ для поиска по email
+
+    @Autowired(required = false)
+    private UserSummaryReadModel userSummaryReadModel; // Модель чтения в памяти; null, если отключена
+
+    @Autowired
+    private ChangeRecorder changeRecorder; // Outbox и события для изменений в обход Hibernate
+
+    @Autowired
+    private OrderRollups orderRollups; // Сводки заказов, удаленных каскадом в базе
+
+    @Autowired
+    private Validator validator; // Проверка отдельных полей частичного обновления
+
+    @PersistenceContext
+    private EntityManager entityManager; // Транзакционный EntityManager: отсоединение пользователя, измененного UPDATE
+
+    @Autowired
+    private TransactionTemplate transactionTemplate; // Транзакция на каждую попытку обновления
+
+    @Value("${app.updates.max-attempts:3}")
+    private int updateMaxAttempts; // Попыток обновления без If-Match при конфликте версий
+
+    @Value("${app.updates.retry-backoff:10ms}")
+    private Duration updateRetryBackoff; // Наибольшая пауза перед повтором (растет с номером попытки)
+
     // Метод для получения всех пользователей
     public List<User> getAllUsers() {
         return userRepository.findAll(); // Возвращает список всех пользователей из базы данных
     }
 
+    // Метод для последовательной обработки проекций всех пользователей без загрузки всей таблицы в память
+    @Transactional(readOnly = true) // Курсор PostgreSQL работает только внутри транзакции
+    public void forEachUserSummary(Consumer<UserSummaryDto> action) {
+        try (Stream<UserSummaryDto> users = userRepository.streamSummaries()) {
+            users.forEach(action); // Проекции не попадают в контекст персистентности, отсоединять нечего
+        }
+    }
+
     // Метод для получения пользователя по ID
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id); // Ищет пользователя по ID, возвращает Optional
     }
 
+    // Проекция UserSummary по id: из модели чтения в памяти, а при ее отсутствии или промахе - из базы.
+    // Промах возможен для только что созданного пользователя, пока событие о нем не применено
+    public Optional<UserSummaryDto> findSummaryById(Long id) {
+        if (userSummaryReadModel != null) {
+            UserSummaryDto user = userSummaryReadModel.find(id);
+            if (user != null) {
+                return Optional.of(user);
+            }
+        }
+        return userRepository.findSummaryById(id);
+    }
+
+    // Поиск пользователя по email: фильтр Блума отсекает незарегистрированные email без запроса к базе
+    public Optional<UserSummaryDto> findSummaryByEmail(String email) {
+        if (!emailBloomFilter.mightContain(email)) {
+            return Optional.empty();
+        }
+        Optional<UserSummaryDto> user = userRepository.findSummaryByEmail(email);
+        if (user.isEmpty()) {
+            emailBloomFilter.recordFalsePositive();
+        }
+        return user;
+    }
+
+    // Проверка, зарегистрирован ли email (тот же путь через фильтр Блума)
+    public boolean existsByEmail(String email) {
+        if (!emailBloomFilter.mightContain(email)) {
+            return false;
+        }
+        boolean exists = userRepository.existsByEmail(email);
+        if (!exists) {
+            emailBloomFilter.recordFalsePositive();
+        }
+        return exists;
+    }
+
     // Метод для создания нового пользователя
     public User createUser(User user) {
         return userRepository.save(user); // Сохраняет нового пользователя в базе данных
     }
 
-    // Метод для обновления данных существующего пользователя
-    public User updateUser(Long id, User updatedUser) {
-        // Проверяем, существует ли пользователь с данным ID
-        return userRepository.findById(id).map(user -> {
-            user.setName(updatedUser.getName()); // Обновляем имя
-            user.setEmail(updatedUser.getEmail()); // Обновляем email
-            return userRepository.save(user); // Сохраняем обновленные данные
-        }).orElseThrow(() -> new RuntimeException("Пользователь с ID " + id + " не найден")); // Выбрасываем исключение, если пользователь не найден
+    // Метод для обновления name и email с оптимистической блокировкой по версии пользователя (@Version), без блокировок строк.
+    // expectedVersions - версии из If-Match (null - без условия): если текущая версия не среди них, обновление
+    // отклоняется с 412. Изменение записывается одним UPDATE ... WHERE version = <прочитанная версия>, и конфликт
+    // определяется по числу измененных строк - без исключения Hibernate, которое загрузило бы пользователя еще раз.
+    // При конфликте: с условием - 412, так как версия клиента устарела; без условия - повтор на свежей версии, не больше
+    // app.updates.max-attempts раз (PUT задает значения целиком, поэтому повтор безопасен), затем 409.
+    // Попытка - два запроса: чтение пользователя с заказами и UPDATE
+    public User updateUser(Long id, User updatedUser, Collection<Long> expectedVersions) {
+        for (int attempt = 1; ; attempt++) {
+            User updated = transactionTemplate.execute(status -> {
+                // Заказы загружаются сразу: ответ сериализует их уже после закрытия сессии
+                User user = userRepository.findWithOrdersById(id)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+                if (expectedVersions != null && !expectedVersions.contains(user.getVersion())) {
+                    throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "User has been modified");
+                }
+                if (Objects.equals(user.getName(), updatedUser.getName())
+                        && Objects.equals(user.getEmail(), updatedUser.getEmail())) {
+                    return user; // Значения не меняются - запись не нужна
+                }
+                entityManager.detach(user); // Строку меняет UPDATE ниже, dirty checking не должен записать ее еще раз
+                Map<String, String> columns = new LinkedHashMap<>();
+                columns.put("name", updatedUser.getName());
+                columns.put("email", updatedUser.getEmail());
+                Optional<VersionedUserSummaryDto> result = userRepository.updateColumns(id, columns, List.of(user.getVersion()));
+                if (result.isEmpty()) {
+                    return null; // Строку изменили или удалили после чтения
+                }
+                user.setName(result.get().name());
+                user.setEmail(result.get().email());
+                user.setVersion(result.get().version());
+                changeRecorder.record(ChangeType.UPDATE, user); // UPDATE прошел мимо JPA-слушателей
+                return user;
+            });
+            if (updated != null) {
+                return updated;
+            }
+            if (expectedVersions != null) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "User has been modified");
+            }
+            if (attempt >= updateMaxAttempts) {
+                throw new ObjectOptimisticLockingFailureException(User.class, id); // GlobalExceptionHandler отвечает 409 Conflict
+            }
+            backOff(attempt);
+        }
+    }
+
+    // Частичное обновление (JSON Merge Patch): проверяются и записываются только переданные поля - одним UPDATE
+    // переданных столбцов без загрузки пользователя и его заказов. Изменение проходит мимо JPA-слушателей,
+    // поэтому строка outbox и событие изменения записываются здесь. expectedVersions - версии из If-Match (null - без условия)
+    // Возвращает состояние после изменения вместе с версией - для ETag ответа
+    @Transactional
+    public VersionedUserSummaryDto patchUser(Long id, Map<String, Object> patch, Collection<Long> expectedVersions) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        patch.forEach((field, value) -> columns.put(field, patchValue(field, value)));
+        if (columns.isEmpty()) { // Пустой патч ничего не меняет
+            return userRepository.findById(id)
+                    .map(user -> new VersionedUserSummaryDto(user.getId(), user.getName(), user.getEmail(), user.getVersion()))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        }
+        Optional<VersionedUserSummaryDto> result = expectedVersions != null && expectedVersions.isEmpty()
+                ? Optional.empty() // Ни один ETag из If-Match не выдан этим сервисом
+                : userRepository.updateColumns(id, columns, expectedVersions);
+        if (result.isEmpty()) { // Строка не изменена: пользователя нет или его версия не совпала с If-Match
+            if (expectedVersions != null && userRepository.existsById(id)) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "User has been modified");
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        VersionedUserSummaryDto updated = result.get();
+        changeRecorder.record(ChangeType.UPDATE, toUser(updated)); // Состояние после изменения для outbox и подписчиков событий
+        return updated;
+    }
+
+    // Значение поля патча, проверенное ограничениями поля User (null в Merge Patch - удаление значения)
+    private String patchValue(String field, Object value) {
+        if (!PATCHABLE_FIELDS.contains(field)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + ": cannot be changed");
+        }
+        if (value != null && !(value instanceof String)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + ": must be a string");
+        }
+        Set<ConstraintViolation<User>> violations = validator.validateValue(User.class, field, value);
+        if (!violations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + ": " + violations.iterator().next().getMessage());
+        }
+        return (String) value;
+    }
+
+    // Пауза перед повтором со случайной задержкой, чтобы столкнувшиеся запросы не повторяли запись одновременно
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(updateRetryBackoff.toMillis() * attempt + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
     }
 
-    // Метод для удаления пользователя
+    // Удаление пользователя одним DELETE: 404 определяется по числу удаленных строк, заказы удаляет база каскадом
+    @Transactional
     public void deleteUser(Long id) {
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id); // Удаляем пользователя по ID
-        } else {
-            throw new RuntimeException("Пользователь с ID " + id + " не найден"); // Выбрасываем исключение, если пользователь не найден
+        if (deleteUsers(List.of(id)).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
     }
+
+    // Удаление пользователей по списку id одним DELETE без загрузки пользователей и заказов.
+    // Слушатели JPA при этом не вызываются, поэтому сводки заказов, outbox и события обновляются здесь.
+    // Для заказов, удаленных каскадом, отдельных событий нет: событие DELETE пользователя означает и удаление его заказов.
+    // Возвращает id удаленных пользователей
+    @Transactional
+    public Set<Long> deleteUsers(Collection<Long> ids) {
+        List<VersionedUserSummaryDto> deleted = userRepository.deleteReturning(ids);
+        Set<Long> deletedIds = new LinkedHashSet<>();
+        for (VersionedUserSummaryDto user : deleted) {
+            deletedIds.add(user.id());
+        }
+        orderRollups.removeUsers(deletedIds);
+        for (VersionedUserSummaryDto user : deleted) {
+            changeRecorder.record(ChangeType.DELETE, toUser(user));
+        }
+        return deletedIds;
+    }
+
+    // Пользователь, измененный или удаленный в обход Hibernate, в виде сущности для outbox и событий
+    private static User toUser(VersionedUserSummaryDto summary) {
+        User user = new User();
+        user.setId(summary.id());
+        user.setName(summary.name());
+        user.setEmail(summary.email());
+        user.setVersion(summary.version());
+        return user;
+    }
 }
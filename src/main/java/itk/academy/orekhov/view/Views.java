@@ -1,5 +1,8 @@
 package itk.academy.orekhov.view;
 
+// Иерархия представлений определяет и набор полей в JSON, и форму запроса к базе:
+// UserSummary читается проекцией UserSummaryDto (только id, name, email),
+// UserDetails - сущностью User вместе с заказами
 public interface Views {
     interface UserSummary {}
     interface UserDetails extends UserSummary {}
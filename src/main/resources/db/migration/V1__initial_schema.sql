@@ -0,0 +1,21 @@
+-- Initial schema: exactly the tables ddl-auto=update created before migrations took over (identity ids,
+-- no version columns, no sequences). Only the constraint names differ: ddl-auto generated them.
+-- Databases created that way are baselined at version 1 (spring.flyway.baseline-on-migrate) and skip this script,
+-- so everything added since then belongs to V2 and later.
+
+create table users (
+    id    bigint generated by default as identity,
+    name  varchar(255),
+    email varchar(255),
+    constraint pk_users primary key (id)
+);
+
+create table orders (
+    id      bigint generated by default as identity,
+    amount  float(53),
+    product varchar(255),
+    status  varchar(255),
+    user_id bigint,
+    constraint pk_orders primary key (id),
+    constraint fk_orders_user foreign key (user_id) references users (id)
+);
@@ -0,0 +1,35 @@
+-- Indexes, version columns and id sequences on top of the baseline schema (V1). Runs the same way on a fresh
+-- V1 schema and on a database baselined from ddl-auto=update; "if not exists" also covers databases where
+-- ddl-auto=update already added the version columns or sequences.
+
+-- One account per email; also serves lookups by email. Fails if duplicates already exist: resolve them first
+create unique index if not exists ux_users_email on users (email);
+
+-- PostgreSQL does not index foreign keys by itself: without these, reading a user's orders and deleting
+-- a user (orphanRemoval, ON DELETE checks) scan the whole orders table.
+-- (user_id, id) serves unfiltered order pages, (user_id, status, id) pages filtered by status
+create index if not exists idx_orders_user_id_id on orders (user_id, id);
+create index if not exists idx_orders_user_id_status_id on orders (user_id, status, id);
+
+-- Optimistic locking needs a version in every row
+alter table users add column if not exists version bigint;
+alter table orders add column if not exists version bigint;
+update users set version = 0 where version is null;
+alter table users alter column version set default 0;
+alter table users alter column version set not null;
+update orders set version = 0 where version is null;
+alter table orders alter column version set default 0;
+alter table orders alter column version set not null;
+
+-- Sequences for pooled id allocation replace the identity columns: Hibernate reserves allocationSize (50) ids
+-- per nextval, so the increment must match @SequenceGenerator.allocationSize
+alter table users alter column id drop identity if exists;
+alter table orders alter column id drop identity if exists;
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists orders_seq start with 1 increment by 50;
+alter sequence users_seq increment by 50;
+alter sequence orders_seq increment by 50;
+
+-- Ids assigned by the identity columns must not be handed out again
+select setval('users_seq', max(id)) from users having max(id) is not null;
+select setval('orders_seq', max(id)) from orders having max(id) is not null;
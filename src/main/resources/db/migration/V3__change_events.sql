@@ -0,0 +1,20 @@
+-- Transactional outbox for the change feed (GET /api/changes): one row per insert, update and delete
+-- of a user or an order, written by the JPA listener in the same transaction as the change itself.
+-- tx_id is the writing transaction: the feed is read in (tx_id, id) order and only up to the oldest
+-- transaction still in progress, so a row committed late can never land behind a consumer's cursor
+create table if not exists change_events (
+    id bigserial primary key,
+    tx_id bigint not null default (pg_current_xact_id()::text::bigint),
+    entity_type varchar(16) not null,
+    entity_id bigint not null,
+    user_id bigint,
+    change_type varchar(8) not null,
+    version bigint,
+    payload text,
+    created_at timestamp with time zone not null default now()
+);
+
+-- Keyset reads of the feed
+create index if not exists idx_change_events_tx_id_id on change_events (tx_id, id);
+-- Retention cleanup
+create index if not exists idx_change_events_created_at on change_events (created_at);
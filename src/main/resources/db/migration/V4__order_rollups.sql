@@ -0,0 +1,30 @@
+-- Order rollups for the dashboard endpoints (GET /api/users/{id}/orders/stats, GET /api/orders/stats).
+-- Kept up to date incrementally by OrderRollupListener in the same transaction as the order change,
+-- so reading them never scans orders. An order without a status is counted under '' (returned as null).
+-- total_amount is numeric without a scale: adding and later subtracting the same amounts returns exactly to zero
+create table if not exists user_order_stats (
+    user_id bigint not null,
+    status varchar(255) not null,
+    order_count bigint not null default 0,
+    total_amount numeric not null default 0,
+    primary key (user_id, status)
+);
+
+-- Global totals are striped: each writing transaction adds to one of 16 rows per status, so concurrent
+-- order writes do not queue on a single row lock. Readers sum the stripes
+create table if not exists order_status_stats (
+    status varchar(255) not null,
+    stripe smallint not null,
+    order_count bigint not null default 0,
+    total_amount numeric not null default 0,
+    primary key (status, stripe)
+);
+
+-- One-time backfill from the existing orders
+insert into user_order_stats (user_id, status, order_count, total_amount)
+select user_id, coalesce(status, ''), count(*), coalesce(sum(amount), 0)
+from orders where user_id is not null group by user_id, coalesce(status, '');
+
+insert into order_status_stats (status, stripe, order_count, total_amount)
+select coalesce(status, ''), 0, count(*), coalesce(sum(amount), 0)
+from orders group by coalesce(status, '');
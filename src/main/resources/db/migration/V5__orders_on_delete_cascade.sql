@@ -0,0 +1,18 @@
+-- Orders are deleted together with their user by the database: DELETE /api/users/{id} and the batch delete
+-- remove users with a single DELETE instead of loading every order and deleting it row by row.
+-- The foreign key is fk_orders_user on a V1 schema, but has a generated name on databases baselined from
+-- ddl-auto=update, so every foreign key from orders to users is dropped and recreated under one name.
+-- The lookup side of the cascade is served by idx_orders_user_id_id (V2)
+do $$
+declare
+    fk record;
+begin
+    for fk in select conname from pg_constraint
+              where conrelid = 'orders'::regclass and confrelid = 'users'::regclass and contype = 'f'
+    loop
+        execute format('alter table orders drop constraint %I', fk.conname);
+    end loop;
+end
+$$;
+
+alter table orders add constraint fk_orders_user foreign key (user_id) references users (id) on delete cascade;
@@ -0,0 +1,17 @@
+-- Recomputes the order rollups with exact decimal sums. The V4 backfill summed the float8 amounts,
+-- while OrderRollupListener adds and subtracts BigDecimal.valueOf(amount) - the shortest decimal form
+-- of each double. Deleting a backfilled order therefore left a float residual in total_amount.
+-- Each amount is converted through its text form (the same shortest decimal) before summing.
+-- V4 itself is not changed: it is already applied on existing databases and Flyway validates its checksum.
+-- This is also the query to rerun after orders were changed bypassing Hibernate
+delete from user_order_stats;
+
+insert into user_order_stats (user_id, status, order_count, total_amount)
+select user_id, coalesce(status, ''), count(*), coalesce(sum(amount::text::numeric), 0)
+from orders where user_id is not null group by user_id, coalesce(status, '');
+
+delete from order_status_stats;
+
+insert into order_status_stats (status, stripe, order_count, total_amount)
+select coalesce(status, ''), 0, count(*), coalesce(sum(amount::text::numeric), 0)
+from orders group by coalesce(status, '');
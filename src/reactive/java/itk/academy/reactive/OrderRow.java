@@ -0,0 +1,10 @@
+package itk.academy.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+// Строка таблицы orders для R2DBC
+@Table("orders")
+public record OrderRow(@Id Long id, String product, Double amount, String status, @Column("user_id") Long userId) {
+}
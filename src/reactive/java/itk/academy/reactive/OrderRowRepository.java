@@ -0,0 +1,20 @@
+package itk.academy.reactive;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface OrderRowRepository extends ReactiveCrudRepository<OrderRow, Long> {
+
+    // Первые заказы одного пользователя, как в OrderRepository.findByUserIdOrderByIdAsc
+    @Query("select * from orders where user_id = :userId order by id limit :limit")
+    Flux<OrderRow> findFirstOrdersOfUser(long userId, int limit);
+
+    // Первые perUser заказов каждого из пользователей одним запросом, как в OrderRepository.findFirstOrdersOfUsers
+    @Query("select id, product, amount, status, user_id from (select o.*, row_number() over "
+            + "(partition by o.user_id order by o.id) as rn from orders o where o.user_id in (:userIds)) o "
+            + "where o.rn <= :perUser order by o.user_id, o.id")
+    Flux<OrderRow> findFirstOrdersOfUsers(Collection<Long> userIds, int perUser);
+}
@@ -0,0 +1,25 @@
+package itk.academy.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+// Реактивное приложение только для чтения: тот же контракт /api/users на WebFlux и R2DBC.
+// Сканирует только пакет reactive, JPA и JDBC не поднимаются
+@SpringBootApplication(exclude = {
+        DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        FlywayAutoConfiguration.class
+})
+public class ReactiveApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveApplication.class)
+                .web(WebApplicationType.REACTIVE) // Spring MVC тоже есть в classpath, поэтому тип приложения задается явно
+                .profiles("reactive") // Настройки R2DBC из application-reactive.properties
+                .run(args);
+    }
+}
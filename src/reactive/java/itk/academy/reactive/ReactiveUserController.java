@@ -0,0 +1,164 @@
+package itk.academy.reactive;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import itk.academy.orekhov.dto.UserDetailsDto;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.pagination.KeysetCursor;
+import itk.academy.orekhov.view.Views;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Реактивный вариант UserController только для чтения: те же пути, параметры, заголовки и представления JSON
+@RestController
+@RequestMapping("/api/users")
+class ReactiveUserController {
+
+    @Autowired
+    private UserRowRepository userRowRepository; // Пользователи (R2DBC)
+
+    @Autowired
+    private OrderRowRepository orderRowRepository; // Заказы (R2DBC)
+
+    @Autowired
+    private R2dbcEntityTemplate entityTemplate; // Запросы заказов с необязательными фильтрами
+
+    @Value("${app.details.max-orders:100}")
+    private int maxOrders; // Сколько заказов встраивается в представление UserDetails
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor"; // Заголовок с курсором следующей страницы
+
+    // Страница пользователей (представление UserSummary) с курсором следующей страницы в X-Next-Cursor и Link.
+    // Страница ограничена limit, поэтому собирается целиком: заголовки зависят от ее размера
+    @GetMapping
+    @JsonView(Views.UserSummary.class)
+    public Mono<ResponseEntity<List<UserSummaryDto>>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit,
+                                                                  ServerHttpRequest request) {
+        long after = KeysetCursor.decode(cursor); // id последней записи предыдущей страницы
+        return userRowRepository.findSummariesAfter(after, limit).collectList().map(users -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (users.size() == limit) { // Полная страница - возможно, есть следующая
+                String next = KeysetCursor.encode(users.get(users.size() - 1).id());
+                String link = UriComponentsBuilder.fromUri(request.getURI())
+                        .replaceQueryParam("cursor", next)
+                        .replaceQueryParam("limit", limit)
+                        .toUriString();
+                response.header(NEXT_CURSOR_HEADER, next)
+                        .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+            }
+            return response.body(users);
+        });
+    }
+
+    // Все пользователи потоком (?stream=true) с учетом обратного давления: строки читаются из базы
+    // по мере записи в сокет, медленный клиент не заставляет буферизовать всю таблицу.
+    // Accept: application/x-ndjson отдает по объекту на строку, иначе - JSON-массив
+    @GetMapping(params = "stream=true")
+    @JsonView(Views.UserSummary.class)
+    public Flux<UserSummaryDto> streamAllUsers() {
+        return userRowRepository.streamSummaries();
+    }
+
+    // Пользователь с первыми заказами и ссылкой на остальные (представление UserDetails)
+    @GetMapping("/{id}")
+    @JsonView(Views.UserDetails.class)
+    public Mono<UserDetailsDto> getUserById(@PathVariable Long id) {
+        return userRowRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")))
+                .flatMap(user -> orderRowRepository.findFirstOrdersOfUser(user.id(), maxOrders + 1)
+                        .map(ReactiveUserController::toOrder)
+                        .collectList()
+                        .map(orders -> UserDetailsDto.capped(user.id(), user.name(), user.email(), orders, maxOrders)));
+    }
+
+    // Заказы пользователя постранично с фильтрами по статусу и диапазону суммы, как в UserController.getUserOrders
+    @GetMapping("/{id}/orders")
+    @JsonView(Views.UserDetails.class)
+    public Mono<ResponseEntity<List<Order>>> getUserOrders(@PathVariable Long id,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit,
+                                                           @RequestParam(required = false) String status,
+                                                           @RequestParam(required = false) Double minAmount,
+                                                           @RequestParam(required = false) Double maxAmount,
+                                                           ServerHttpRequest request) {
+        if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "minAmount must not be greater than maxAmount"));
+        }
+        long after = KeysetCursor.decode(cursor); // id последнего заказа предыдущей страницы
+        Criteria criteria = Criteria.where("user_id").is(id); // В SQL попадают только заданные фильтры
+        if (status != null) {
+            criteria = criteria.and("status").is(status);
+        }
+        criteria = criteria.and("id").greaterThan(after);
+        if (minAmount != null) {
+            criteria = criteria.and("amount").greaterThanOrEquals(minAmount);
+        }
+        if (maxAmount != null) {
+            criteria = criteria.and("amount").lessThanOrEquals(maxAmount);
+        }
+        Query query = Query.query(criteria).sort(Sort.by("id")).limit(limit);
+        return entityTemplate.select(query, OrderRow.class)
+                .map(ReactiveUserController::toOrder)
+                .collectList()
+                .filterWhen(orders -> orders.isEmpty() ? userRowRepository.existsById(id) : Mono.just(true))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")))
+                .map(orders -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (orders.size() == limit) { // Полная страница - возможно, есть следующая
+                        String next = KeysetCursor.encode(orders.get(orders.size() - 1).getId());
+                        String link = UriComponentsBuilder.fromUri(request.getURI())
+                                .replaceQueryParam("cursor", next)
+                                .replaceQueryParam("limit", limit)
+                                .toUriString();
+                        response.header(NEXT_CURSOR_HEADER, next)
+                                .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+                    }
+                    return response.body(orders);
+                });
+    }
+
+    // Несколько пользователей с первыми заказами (представление UserDetails): один запрос пользователей и один запрос заказов
+    @GetMapping("/details")
+    @JsonView(Views.UserDetails.class)
+    public Flux<UserDetailsDto> getUsersDetails(@RequestParam @Size(min = 1, max = 100) List<Long> ids) {
+        return userRowRepository.findByIdInOrderById(ids).collectList()
+                .filter(users -> !users.isEmpty())
+                .flatMapMany(users -> orderRowRepository
+                        .findFirstOrdersOfUsers(users.stream().map(UserRow::id).toList(), maxOrders + 1)
+                        .collectMultimap(OrderRow::userId, ReactiveUserController::toOrder)
+                        .flatMapIterable(orders -> users.stream()
+                                .map(user -> UserDetailsDto.capped(user.id(), user.name(), user.email(),
+                                        List.copyOf(orders.getOrDefault(user.id(), List.of())), maxOrders))
+                                .toList()));
+    }
+
+    // Заказ для сериализации в представлении UserDetails (тот же JSON, что и у UserController)
+    private static Order toOrder(OrderRow row) {
+        Order order = new Order();
+        order.setId(row.id());
+        order.setProduct(row.product());
+        order.setAmount(row.amount());
+        order.setStatus(row.status());
+        return order;
+    }
+}
@@ -0,0 +1,9 @@
+package itk.academy.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+// Строка таблицы users для R2DBC (сущность JPA User в реактивном приложении не используется)
+@Table("users")
+public record UserRow(@Id Long id, String name, String email, Long version) {
+}
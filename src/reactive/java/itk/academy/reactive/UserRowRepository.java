@@ -0,0 +1,18 @@
+package itk.academy.reactive;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface UserRowRepository extends ReactiveCrudRepository<UserRow, Long>, UserSummaryStream {
+
+    // Keyset-пагинация проекций UserSummary, как в UserRepository.findSummariesAfter
+    @Query("select id, name, email from users where id > :after order by id limit :limit")
+    Flux<UserSummaryDto> findSummariesAfter(long after, int limit);
+
+    // Несколько пользователей по списку id
+    Flux<UserRow> findByIdInOrderById(Collection<Long> ids);
+}
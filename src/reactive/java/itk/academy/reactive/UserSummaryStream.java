@@ -0,0 +1,11 @@
+package itk.academy.reactive;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import reactor.core.publisher.Flux;
+
+// Фрагмент репозитория: потоковое чтение всех проекций UserSummary
+public interface UserSummaryStream {
+
+    // Все пользователи по возрастанию id; строки читаются из курсора по мере запроса подписчика
+    Flux<UserSummaryDto> streamSummaries();
+}
@@ -0,0 +1,31 @@
+package itk.academy.reactive;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+// Реализация фрагмента на DatabaseClient: в производных запросах нельзя задать размер порции курсора
+class UserSummaryStreamImpl implements UserSummaryStream {
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    UserSummaryStreamImpl(DatabaseClient databaseClient, @Value("${app.reactive.fetch-size:500}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Flux<UserSummaryDto> streamSummaries() {
+        return databaseClient.sql("select id, name, email from users order by id")
+                // С fetchSize драйвер читает результат порциями через портал, а не весь сразу:
+                // следующая порция запрашивается только при спросе подписчика
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(row -> new UserSummaryDto(
+                        row.get("id", Long.class),
+                        row.get("name", String.class),
+                        row.get("email", String.class)))
+                .all();
+    }
+}
@@ -0,0 +1,65 @@
+package itk.academy.orekhov.cache;
+
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.event.ChangeType;
+import itk.academy.orekhov.event.EntityChangedEvent;
+import itk.academy.orekhov.view.Views;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserResponseCacheTest {
+
+    private final UserResponseCache cache = new UserResponseCache(100, Duration.ofMinutes(1));
+    private final byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    // Ответ отдается только для той версии пользователя, из которой он построен
+    @Test
+    void testGetMatchesVersion() {
+        cache.put(1L, Views.UserDetails.class, 3L, body);
+
+        assertNotNull(cache.get(1L, Views.UserDetails.class, 3L));
+        assertNull(cache.get(1L, Views.UserDetails.class, 4L), "Response of an older version must not be served");
+        assertNull(cache.get(1L, Views.UserSummary.class, 3L), "Responses are cached per view");
+    }
+
+    // ETag содержит версию и меняется вместе с содержимым
+    @Test
+    void testEtag() {
+        String etag = cache.put(1L, Views.UserDetails.class, 3L, body).etag();
+        String otherEtag = cache.put(1L, Views.UserDetails.class, 3L, "{\"id\":2}".getBytes(StandardCharsets.UTF_8)).etag();
+
+        assertTrue(etag.startsWith("\"v3-"));
+        assertNotEquals(etag, otherEtag);
+    }
+
+    // Изменение заказа пользователя сбрасывает его ответы во всех представлениях
+    @Test
+    void testEvictOnOrderChange() {
+        cache.put(1L, Views.UserDetails.class, 3L, body);
+        cache.put(1L, Views.UserSummary.class, 3L, body);
+        cache.put(2L, Views.UserDetails.class, 1L, body);
+
+        cache.onEntityChanged(new EntityChangedEvent(ChangeType.UPDATE, Order.class, 10L, 1L, 1L, null, null));
+
+        assertNull(cache.get(1L, Views.UserDetails.class, 3L));
+        assertNull(cache.get(1L, Views.UserSummary.class, 3L));
+        assertNotNull(cache.get(2L, Views.UserDetails.class, 1L), "Other users must stay cached");
+    }
+
+    // Версия извлекается только из ETag этого кеша; слабые и чужие ETag не содержат версии
+    @Test
+    void testVersionOf() {
+        String etag = cache.put(1L, Views.UserDetails.class, 7L, body).etag();
+
+        assertEquals(7L, UserResponseCache.versionOf(etag));
+        assertNull(UserResponseCache.versionOf("W/" + etag));
+        assertNull(UserResponseCache.versionOf("\"abc\""));
+        assertNull(UserResponseCache.versionOf("\"vX-1\""));
+        assertNull(UserResponseCache.versionOf(null));
+        assertEquals(8L, UserResponseCache.versionOf(UserResponseCache.etag(8L))); // ETag ответа на изменение
+    }
+}
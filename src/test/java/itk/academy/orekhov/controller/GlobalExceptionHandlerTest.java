@@ -1,14 +1,21 @@
 package itk.academy.orekhov.controller;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Path;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -88,6 +95,25 @@ class GlobalExceptionHandlerTest {
         assertEquals("Validation error", response.getBody());
     }
 
+    // Тест обработки нарушения ограничений параметра запроса
+    @Test
+    void testHandleConstraintViolationException() {
+        // Создаем мок нарушения для параметра limit метода getAllUsers
+        ConstraintViolation<?> violation = mock(ConstraintViolation.class);
+        Path path = mock(Path.class);
+        when(path.toString()).thenReturn("getAllUsers.limit");
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(violation.getMessage()).thenReturn("must be less than or equal to 1000");
+        ConstraintViolationException exception = new ConstraintViolationException(Set.of(violation));
+
+        // Вызываем обработчик исключения
+        ResponseEntity<String> response = globalExceptionHandler.handleConstraintViolationException(exception);
+
+        // Проверяем, что в сообщении указано имя параметра без имени метода
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("limit: must be less than or equal to 1000", response.getBody());
+    }
+
     // Тест для необработанного исключения
     @Test
     void testUnhandledException() {
@@ -101,4 +127,29 @@ class GlobalExceptionHandlerTest {
             });
         }
     }
+
+    // Тест обработки нарушения уникального индекса email
+    @Test
+    void testHandleDataIntegrityViolationException() {
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("ERROR: duplicate key value violates unique constraint \"ux_users_email\""));
+        ResponseEntity<String> response = globalExceptionHandler.handleDataIntegrityViolationException(duplicate);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("email: already registered", response.getBody());
+
+        // Прочие нарушения - общий текст без подробностей SQL
+        DataIntegrityViolationException other = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("ERROR: insert or update on table \"orders\" violates foreign key constraint"));
+        response = globalExceptionHandler.handleDataIntegrityViolationException(other);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("Data integrity violation", response.getBody());
+    }
+
+    // Тест обработки конфликта оптимистической блокировки
+    @Test
+    void testHandleOptimisticLockingFailureException() {
+        ResponseEntity<String> response = globalExceptionHandler.handleOptimisticLockingFailureException(
+                new ObjectOptimisticLockingFailureException("itk.academy.orekhov.entity.User", 1L));
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
 }
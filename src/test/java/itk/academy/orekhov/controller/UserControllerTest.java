@@ -1,6 +1,9 @@
 package itk.academy.orekhov.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import itk.academy.orekhov.cache.EmailBloomFilter;
+import itk.academy.orekhov.readmodel.UserSummaryReadModel;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -8,9 +11,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -26,6 +42,12 @@ class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper; // Внедрение ObjectMapper для преобразования объектов в JSON
 
+    @Autowired
+    private EmailBloomFilter emailBloomFilter; // Фильтр email для проверки быстрого отрицательного ответа
+
+    @Autowired
+    private UserSummaryReadModel userSummaryReadModel; // Модель чтения в памяти (app.read-model.type=memory в тестах)
+
     // Тест для получения всех пользователей
     @Test
     void testGetAllUsers() throws Exception {
@@ -34,6 +56,49 @@ class UserControllerTest {
                 .andExpect(jsonPath("$").isEmpty()); // Проверяем, что ответ пуст, если в базе нет пользователей
     }
 
+    // Тест для keyset-пагинации: курсор следующей страницы возвращается в заголовке
+    @Test
+    void testGetAllUsersWithCursor() throws Exception {
+        // Создаем двух пользователей
+        List<Long> ids = new ArrayList<>();
+        for (String name : new String[]{"First", "Second"}) {
+            Map<String, String> user = new HashMap<>();
+            user.put("name", name);
+            user.put("email", name.toLowerCase() + ".page@example.com");
+            String created = mockMvc.perform(post("/api/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(user)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            ids.add(objectMapper.readTree(created).get("id").asLong());
+        }
+
+        // Первая страница из одного элемента содержит курсор на следующую
+        String next = mockMvc.perform(get("/api/users").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().exists(UserController.NEXT_CURSOR_HEADER))
+                .andReturn().getResponse().getHeader(UserController.NEXT_CURSOR_HEADER);
+
+        // Вторая страница начинается после последнего id первой страницы
+        mockMvc.perform(get("/api/users").param("limit", "1").param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].orders").doesNotExist()); // Представление UserSummary без заказов
+
+        // Удаляем созданных пользователей, чтобы не влиять на другие тесты
+        for (Long id : ids) {
+            mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+        }
+    }
+
+    // Тест для некорректного размера страницы
+    @Test
+    void testGetAllUsersInvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/users").param("limit", "0"))
+                .andExpect(status().isBadRequest()); // Ожидаем ошибку валидации параметра (HTTP 400)
+    }
+
     // Тест для получения пользователя по ID
     @Test
     void testGetUserById() throws Exception {
@@ -41,6 +106,554 @@ class UserControllerTest {
                 .andExpect(status().isNotFound()); // Ожидаем статус 404, если пользователь не найден
     }
 
+    // Тест для ETag и условного запроса If-None-Match
+    @Test
+    void testGetUserByIdNotModified() throws Exception {
+        // Создаем пользователя
+        Map<String, String> user = new HashMap<>();
+        user.put("name", "Etag User");
+        user.put("email", "etag.user@example.com");
+        String created = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        // Первый запрос возвращает тело и ETag
+        String etag = mockMvc.perform(get("/api/users/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("etag.user@example.com"))
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Повторный запрос с тем же ETag получает 304 без тела
+        mockMvc.perform(get("/api/users/{id}", id).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // После изменения пользователя ETag становится другим
+        user.put("name", "Etag User Renamed");
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/{id}", id).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Etag User Renamed"));
+
+        // Удаляем созданного пользователя, чтобы не влиять на другие тесты
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+    }
+
+    // Тест для пакетного создания, обновления и удаления пользователей с результатом по каждому элементу
+    @Test
+    void testBatchCreateUpdateDelete() throws Exception {
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("name", "Batch " + i);
+            user.put("email", "batch" + i + "@example.com");
+            users.add(user);
+        }
+        users.get(1).put("email", "invalid-email"); // Некорректный элемент не мешает остальным
+
+        String created = mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(users)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].error").value(startsWith("email:")))
+                .andExpect(jsonPath("$[2].status").value(201))
+                .andReturn().getResponse().getContentAsString();
+        long first = objectMapper.readTree(created).get(0).get("id").asLong();
+        long third = objectMapper.readTree(created).get(2).get("id").asLong();
+
+        // Обновляем существующего пользователя и несуществующего
+        List<Map<String, Object>> updates = List.of(
+                Map.of("id", first, "name", "Batch Renamed", "email", "batch.renamed@example.com"),
+                Map.of("id", Long.MAX_VALUE, "name", "Missing", "email", "missing@example.com"));
+        mockMvc.perform(put("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[1].status").value(404));
+        mockMvc.perform(get("/api/users/{id}", first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Batch Renamed"));
+
+        // Удаляем созданных пользователей одним запросом
+        mockMvc.perform(delete("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(first, third, first))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(204))
+                .andExpect(jsonPath("$[1].status").value(204))
+                .andExpect(jsonPath("$[2].status").value(404));
+        mockMvc.perform(get("/api/users/{id}", first)).andExpect(status().isNotFound());
+    }
+
+    // Тест для пакета с занятыми email: конфликтующие элементы получают 409, остальные записываются
+    @Test
+    void testBatchDuplicateEmails() throws Exception {
+        List<Map<String, Object>> users = List.of(
+                Map.of("name", "Dup 0", "email", "dup0@example.com"),
+                Map.of("name", "Dup 1", "email", "dup0@example.com"), // Занят предыдущим элементом пакета
+                Map.of("name", "Dup 2", "email", "dup2@example.com"));
+        String created = mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(users)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[1].status").value(409))
+                .andExpect(jsonPath("$[1].error").value("email: already exists"))
+                .andExpect(jsonPath("$[2].status").value(201))
+                .andReturn().getResponse().getContentAsString();
+        long first = objectMapper.readTree(created).get(0).get("id").asLong();
+        long third = objectMapper.readTree(created).get(2).get("id").asLong();
+
+        // Email уже есть в базе: при создании и при обновлении другого пользователя
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(Map.of("name", "Dup 3", "email", "dup2@example.com")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(409));
+        List<Map<String, Object>> updates = List.of(
+                Map.of("id", first, "name", "Dup 0 Renamed", "email", "dup2@example.com"),
+                Map.of("id", third, "name", "Dup 2 Renamed", "email", "dup2@example.com")); // Свой email
+        mockMvc.perform(put("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(409))
+                .andExpect(jsonPath("$[1].status").value(200));
+        mockMvc.perform(get("/api/users/{id}", first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("dup0@example.com"));
+
+        mockMvc.perform(delete("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(first, third))))
+                .andExpect(status().isOk());
+    }
+
+    // Тест для пустого пакетного запроса
+    @Test
+    void testBatchCreateEmpty() throws Exception {
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest()); // Пакет должен содержать хотя бы один элемент
+    }
+
+    // Тест для импорта NDJSON: корректные строки записываются, остальные попадают в отчет
+    @Test
+    void testImportUsers() throws Exception {
+        String ndjson = String.join("\n",
+                "{\"name\":\"Imported\",\"email\":\"imported@example.com\",\"orders\":[{\"product\":\"Book\",\"amount\":10.0,\"status\":\"NEW\"}]}",
+                "{\"name\":\"Bad Email\",\"email\":\"not-an-email\"}",
+                "{\"name\":\"Broken\"",
+                "{\"name\":\"Bad Order\",\"email\":\"bad.order@example.com\",\"orders\":[{\"product\":\"\"}]}",
+                "");
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.rejects[0].line").value(2))
+                .andExpect(jsonPath("$.rejects[1].line").value(3))
+                .andExpect(jsonPath("$.rejects[2].line").value(4))
+                .andExpect(jsonPath("$.rejects[2].error").value(startsWith("orders[0].product:")));
+
+        // Находим импортированного пользователя и проверяем, что заказы записаны вместе с ним
+        String page = mockMvc.perform(get("/api/users").param("limit", "1000"))
+                .andReturn().getResponse().getContentAsString();
+        long id = 0;
+        for (var user : objectMapper.readTree(page)) {
+            if ("imported@example.com".equals(user.get("email").asText())) {
+                id = user.get("id").asLong();
+            }
+        }
+        mockMvc.perform(get("/api/users/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders[0].product").value("Book"));
+
+        // Удаляем импортированного пользователя, чтобы не влиять на другие тесты
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+    }
+
+    // Тест для выгрузки пользователей с заказами в NDJSON и CSV, в том числе со сжатием gzip
+    @Test
+    void testExportUsers() throws Exception {
+        String ndjson = "{\"name\":\"Exported\",\"email\":\"exported@example.com\",\"orders\":["
+                + "{\"product\":\"Book\",\"amount\":10.0,\"status\":\"NEW\"},{\"product\":\"Pen\",\"amount\":1.5,\"status\":\"NEW\"}]}\n";
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(jsonPath("$.imported").value(1));
+
+        // NDJSON: одна строка на пользователя в форме представления UserDetails
+        String exported = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/users/export"))
+                        .andExpect(request().asyncStarted()).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = exported.split("\n");
+        var user = objectMapper.readTree(lines[lines.length - 1]);
+        long id = user.get("id").asLong();
+        assertEquals("exported@example.com", user.get("email").asText());
+        assertEquals(2, user.get("orders").size());
+
+        // CSV со сжатием gzip, продолжение после предыдущего пользователя
+        byte[] compressed = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/users/export")
+                                .param("format", "csv")
+                                .param("after", String.valueOf(id - 1))
+                                .header("Accept-Encoding", "gzip"))
+                        .andExpect(request().asyncStarted()).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(3, csv.split("\r\n").length); // Заголовок и два заказа
+        assertTrue(csv.contains(id + ",Exported,exported@example.com,"));
+
+        // Неизвестный формат
+        mockMvc.perform(get("/api/users/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        // Удаляем выгруженного пользователя, чтобы не влиять на другие тесты
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+    }
+
+    // Тест ленты изменений: вставка пользователя с заказами, изменение и удаление видны по порядку после курсора
+    @Test
+    void testGetChanges() throws Exception {
+        String since = lastChangeCursor(null); // Изменения, сделанные другими тестами, пропускаем
+
+        String ndjson = "{\"name\":\"Changed\",\"email\":\"changed@example.com\",\"orders\":["
+                + "{\"product\":\"Book\",\"amount\":10.0,\"status\":\"NEW\"}]}\n";
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(jsonPath("$.imported").value(1));
+        List<JsonNode> changes = changesSince(since);
+        assertEquals(2, changes.size()); // Пользователь и заказ одной транзакции
+        var user = changes.stream().filter(c -> "User".equals(c.get("entity").asText())).findFirst().orElseThrow();
+        var order = changes.stream().filter(c -> "Order".equals(c.get("entity").asText())).findFirst().orElseThrow();
+        long id = user.get("id").asLong();
+        assertEquals("INSERT", user.get("type").asText());
+        assertEquals("changed@example.com", user.get("data").get("email").asText());
+        assertNull(user.get("data").get("orders")); // Пользователь в представлении UserSummary
+        assertEquals(id, order.get("userId").asLong());
+        assertEquals("Book", order.get("data").get("product").asText());
+
+        // Изменение и удаление - после курсора последней полученной строки
+        since = changes.get(changes.size() - 1).get("cursor").asText();
+        Map<String, String> updated = new HashMap<>();
+        updated.put("name", "Changed Renamed");
+        updated.put("email", "changed@example.com");
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updated)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+        changes = changesSince(since);
+        // Заказы удаляются каскадом в базе: отдельных событий нет, удаление пользователя означает и удаление его заказов
+        assertEquals(List.of("User:DELETE", "User:UPDATE"),
+                changes.stream().map(c -> c.get("entity").asText() + ":" + c.get("type").asText()).sorted().toList());
+        assertEquals("UPDATE", changes.get(0).get("type").asText()); // Изменение зафиксировано раньше удаления
+        assertEquals("Changed Renamed", changes.get(0).get("data").get("name").asText());
+        assertTrue(changes.get(changes.size() - 1).get("data").isNull());
+
+        // После последнего курсора новых изменений нет; неверный курсор - 400
+        assertTrue(changesSince(changes.get(changes.size() - 1).get("cursor").asText()).isEmpty());
+        mockMvc.perform(get("/api/changes").param("since", "not a cursor!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Тест сводок заказов: вставка и удаление заказов сразу отражаются в сводках пользователя и общих сводках
+    @Test
+    void testGetOrderStats() throws Exception {
+        JsonNode before = statsByStatus(); // Общие сводки с учетом заказов других тестов
+
+        String ndjson = "{\"name\":\"Stats\",\"email\":\"stats@example.com\",\"orders\":["
+                + "{\"product\":\"Book\",\"amount\":10.5,\"status\":\"STATS_NEW\"},"
+                + "{\"product\":\"Pen\",\"amount\":1.5,\"status\":\"STATS_NEW\"},"
+                + "{\"product\":\"Lamp\",\"amount\":20.0,\"status\":\"STATS_PAID\"}]}\n";
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(jsonPath("$.imported").value(1));
+        long id = objectMapper.readTree(mockMvc.perform(get("/api/users/by-email").param("email", "stats@example.com"))
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(get("/api/users/{id}/orders/stats", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(id))
+                .andExpect(jsonPath("$.orderCount").value(3))
+                .andExpect(jsonPath("$.totalAmount").value(32.0))
+                .andExpect(jsonPath("$.byStatus.length()").value(2))
+                .andExpect(jsonPath("$.byStatus[0].status").value("STATS_NEW"))
+                .andExpect(jsonPath("$.byStatus[0].orderCount").value(2))
+                .andExpect(jsonPath("$.byStatus[0].totalAmount").value(12.0))
+                .andExpect(jsonPath("$.byStatus[1].status").value("STATS_PAID"))
+                .andExpect(jsonPath("$.byStatus[1].totalAmount").value(20.0));
+        JsonNode after = statsByStatus();
+        assertNull(objectMapper.readTree(mockMvc.perform(get("/api/orders/stats"))
+                .andReturn().getResponse().getContentAsString()).get("userId")); // Общая сводка без пользователя
+        assertEquals(2, after.path("STATS_NEW").path("orderCount").asLong() - before.path("STATS_NEW").path("orderCount").asLong());
+        assertEquals(20.0, after.path("STATS_PAID").path("totalAmount").asDouble() - before.path("STATS_PAID").path("totalAmount").asDouble());
+
+        // Удаление пользователя вместе с заказами вычитается из сводок
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+        assertEquals(before.path("STATS_NEW").path("orderCount").asLong(), statsByStatus().path("STATS_NEW").path("orderCount").asLong());
+        mockMvc.perform(get("/api/users/{id}/orders/stats", id))
+                .andExpect(status().isNotFound());
+    }
+
+    // Тест удаления пользователя с заказами одним DELETE: заказы удаляются каскадом, кеши не отдают удаленного пользователя
+    @Test
+    void testDeleteUserWithOrders() throws Exception {
+        String ndjson = "{\"name\":\"Cascade\",\"email\":\"cascade@example.com\",\"orders\":["
+                + "{\"product\":\"Book\",\"amount\":10.0,\"status\":\"CASCADE_NEW\"},"
+                + "{\"product\":\"Pen\",\"amount\":2.0,\"status\":\"CASCADE_NEW\"}]}\n";
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(jsonPath("$.imported").value(1));
+        long id = objectMapper.readTree(mockMvc.perform(get("/api/users/by-email").param("email", "cascade@example.com"))
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+        mockMvc.perform(get("/api/users/{id}", id)).andExpect(status().isOk()); // Пользователь и заказы попадают в кеши
+        mockMvc.perform(get("/api/users/{id}/orders", id)).andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/users/{id}", id)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/users/{id}/orders", id)).andExpect(status().isNotFound()); // Заказов не осталось
+        assertEquals(0, statsByStatus().path("CASCADE_NEW").path("orderCount").asLong());
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNotFound()); // Повторное удаление - 404
+    }
+
+    // Тест отчета по заказам: пользователь с крупнейшими заказами первым в списке покупателей
+    @Test
+    void testGetOrderReport() throws Exception {
+        String ndjson = "{\"name\":\"Big Spender\",\"email\":\"big.spender@example.com\",\"orders\":["
+                + "{\"product\":\"Car\",\"amount\":1000000.0,\"status\":\"REPORT_PAID\"},"
+                + "{\"product\":\"Boat\",\"amount\":500000.5,\"status\":\"REPORT_PAID\"}]}\n";
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(jsonPath("$.imported").value(1));
+
+        String report = mockMvc.perform(get("/api/reports/orders").param("top", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.topSpenders[0].email").value("big.spender@example.com"))
+                .andExpect(jsonPath("$.topSpenders[0].orderCount").value(2))
+                .andExpect(jsonPath("$.topSpenders[0].totalAmount").value(1500000.5))
+                .andExpect(jsonPath("$.topSpenders.length()").value(lessThanOrEqualTo(3)))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode paid = null;
+        for (JsonNode status : objectMapper.readTree(report).get("byStatus")) {
+            if ("REPORT_PAID".equals(status.get("status").asText())) {
+                paid = status;
+            }
+        }
+        assertNotNull(paid);
+        assertEquals(2, paid.get("orderCount").asLong());
+        mockMvc.perform(get("/api/reports/orders").param("top", "5000"))
+                .andExpect(status().isBadRequest());
+
+        long id = objectMapper.readTree(report).get("topSpenders").get(0).get("userId").asLong();
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+    }
+
+    // Общие сводки заказов в виде объекта status -> сводка статуса
+    private JsonNode statsByStatus() throws Exception {
+        JsonNode stats = objectMapper.readTree(mockMvc.perform(get("/api/orders/stats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        var byStatus = objectMapper.createObjectNode();
+        for (JsonNode status : stats.get("byStatus")) {
+            byStatus.set(status.get("status").asText(), status);
+        }
+        return byStatus;
+    }
+
+    // Изменения после курсора (null - с начала ленты)
+    private List<JsonNode> changesSince(String since) throws Exception {
+        var changesRequest = get("/api/changes").param("limit", "10000");
+        if (since != null) {
+            changesRequest.param("since", since);
+        }
+        String body = mockMvc.perform(asyncDispatch(mockMvc.perform(changesRequest)
+                        .andExpect(request().asyncStarted()).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> changes = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                changes.add(objectMapper.readTree(line));
+            }
+        }
+        return changes;
+    }
+
+    // Курсор последнего изменения в ленте (null, если лента пуста)
+    private String lastChangeCursor(String since) throws Exception {
+        List<JsonNode> changes = changesSince(since);
+        return changes.isEmpty() ? since : lastChangeCursor(changes.get(changes.size() - 1).get("cursor").asText());
+    }
+
+    // Тест для пакетного чтения деталей пользователей
+    @Test
+    void testGetUsersDetails() throws Exception {
+        mockMvc.perform(get("/api/users/details").param("ids", "1001", "1002")) // Несуществующие пользователи
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty()); // Отсутствующие id не попадают в ответ
+    }
+
+    // Тест для постраничного ресурса заказов и ограничения заказов в представлении UserDetails
+    // (в тестах app.details.max-orders=2)
+    @Test
+    void testGetUserOrders() throws Exception {
+        String ndjson = "{\"name\":\"Orders Owner\",\"email\":\"orders.owner@example.com\",\"orders\":["
+                + "{\"product\":\"Book\",\"amount\":10.0,\"status\":\"NEW\"},"
+                + "{\"product\":\"Pen\",\"amount\":20.0,\"status\":\"SHIPPED\"},"
+                + "{\"product\":\"Lamp\",\"amount\":30.0,\"status\":\"NEW\"}]}\n";
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(jsonPath("$.imported").value(1));
+        String page = mockMvc.perform(get("/api/users").param("limit", "1000"))
+                .andReturn().getResponse().getContentAsString();
+        long id = 0;
+        for (var user : objectMapper.readTree(page)) {
+            if ("orders.owner@example.com".equals(user.get("email").asText())) {
+                id = user.get("id").asLong();
+            }
+        }
+
+        // Детали пользователя содержат только первые заказы и ссылки на остальные
+        mockMvc.perform(get("/api/users/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.length()").value(2))
+                .andExpect(jsonPath("$.ordersHref").value("/api/users/" + id + "/orders"))
+                .andExpect(jsonPath("$.ordersNext").value(startsWith("/api/users/" + id + "/orders?cursor=")));
+        mockMvc.perform(get("/api/users/details").param("ids", String.valueOf(id)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orders.length()").value(2))
+                .andExpect(jsonPath("$[0].ordersNext").exists());
+
+        // Постраничное чтение всех заказов
+        String next = mockMvc.perform(get("/api/users/{id}/orders", id).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].product").value("Book"))
+                .andExpect(header().exists(UserController.NEXT_CURSOR_HEADER))
+                .andReturn().getResponse().getHeader(UserController.NEXT_CURSOR_HEADER);
+        mockMvc.perform(get("/api/users/{id}/orders", id).param("limit", "2").param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].product").value("Lamp"))
+                .andExpect(header().doesNotExist(UserController.NEXT_CURSOR_HEADER));
+
+        // Фильтры по статусу и диапазону суммы
+        mockMvc.perform(get("/api/users/{id}/orders", id).param("status", "NEW"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].product").value("Lamp"));
+        mockMvc.perform(get("/api/users/{id}/orders", id).param("minAmount", "15").param("maxAmount", "25"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].product").value("Pen"));
+        mockMvc.perform(get("/api/users/{id}/orders", id).param("minAmount", "25").param("maxAmount", "15"))
+                .andExpect(status().isBadRequest());
+
+        // Удаляем пользователя; заказы несуществующего пользователя - 404
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/users/{id}/orders", id)).andExpect(status().isNotFound());
+    }
+
+    // Тест для поиска и проверки email (фильтр Блума заполняется при старте и пополняется при создании)
+    @Test
+    void testGetUserByEmail() throws Exception {
+        Map<String, String> user = new HashMap<>();
+        user.put("name", "Email Owner");
+        user.put("email", "email.owner@example.com");
+        String created = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        // Зарегистрированный email находится и по GET, и по HEAD
+        mockMvc.perform(get("/api/users/by-email").param("email", "email.owner@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.orders").doesNotExist());
+        mockMvc.perform(head("/api/users/by-email").param("email", "email.owner@example.com"))
+                .andExpect(status().isOk());
+
+        // Незарегистрированный email отсекается фильтром
+        assertTrue(emailBloomFilter.mightContain("email.owner@example.com"));
+        assertFalse(emailBloomFilter.mightContain("nobody.registered@example.com"));
+        mockMvc.perform(get("/api/users/by-email").param("email", "nobody.registered@example.com"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(head("/api/users/by-email").param("email", "nobody.registered@example.com"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/users/by-email").param("email", "not-an-email"))
+                .andExpect(status().isBadRequest());
+
+        // После удаления email остается в фильтре, но база дает верный ответ
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+        mockMvc.perform(head("/api/users/by-email").param("email", "email.owner@example.com"))
+                .andExpect(status().isNotFound());
+    }
+
+    // Тест для UserSummary из модели чтения в памяти: изменения попадают в модель после фиксации
+    @Test
+    void testGetUserSummary() throws Exception {
+        Map<String, String> user = new HashMap<>();
+        user.put("name", "Summary User");
+        user.put("email", "summary.user@example.com");
+        String created = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        // Созданный пользователь уже в модели и отдается без заказов
+        assertTrue(userSummaryReadModel.isReady());
+        assertEquals("Summary User", userSummaryReadModel.find(id).name());
+        mockMvc.perform(get("/api/users/{id}/summary", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Summary User"))
+                .andExpect(jsonPath("$.email").value("summary.user@example.com"))
+                .andExpect(jsonPath("$.orders").doesNotExist());
+
+        // Изменение имени видно в модели
+        user.put("name", "Summary User Renamed");
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk());
+        assertEquals("Summary User Renamed", userSummaryReadModel.find(id).name());
+        mockMvc.perform(get("/api/users/{id}/summary", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Summary User Renamed"));
+
+        // После удаления пользователя нет ни в модели, ни в базе
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+        assertNull(userSummaryReadModel.find(id));
+        mockMvc.perform(get("/api/users/{id}/summary", id))
+                .andExpect(status().isNotFound());
+    }
+
     // Тест для создания нового пользователя
     @Test
     void testCreateUser() throws Exception {
@@ -71,6 +684,156 @@ class UserControllerTest {
                 .andExpect(status().isNotFound()); // Ожидаем статус 404, если пользователь не найден
     }
 
+    // Тест условного обновления: PUT с If-Match из устаревшего ETag отклоняется с 412
+    @Test
+    void testUpdateUserIfMatch() throws Exception {
+        Map<String, String> user = new HashMap<>();
+        user.put("name", "If Match");
+        user.put("email", "if.match@example.com");
+        String created = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+        String etag = mockMvc.perform(get("/api/users/{id}", id))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Первое обновление с актуальным ETag проходит, увеличивает версию и возвращает ETag новой версии
+        user.put("name", "If Match First");
+        String updatedEtag = mockMvc.perform(put("/api/users/{id}", id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("If Match First"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(updatedEtag);
+        assertNotEquals(etag, updatedEtag);
+
+        // Второе обновление с тем же ETag опоздало: 412, данные первого не перезаписаны
+        user.put("name", "If Match Second");
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .header("If-Match", "\"not-ours\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/users/{id}", id))
+                .andExpect(jsonPath("$.name").value("If Match First"));
+
+        // ETag ответа PUT годится для If-Match следующего изменения без повторного GET
+        user.put("name", "If Match Chained");
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .header("If-Match", updatedEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("If Match Chained"));
+
+        // Свежий ETag и "*" снова позволяют обновить
+        user.put("name", "If Match Second");
+        String fresh = mockMvc.perform(get("/api/users/{id}", id))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .header("If-Match", "\"v999-0\", " + fresh)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("If Match Second"));
+        mockMvc.perform(put("/api/users/{id}", id)
+                        .header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+    }
+
+    // Тест частичного обновления: меняется только переданное поле, проверяются только переданные поля
+    @Test
+    void testPatchUser() throws Exception {
+        Map<String, String> user = new HashMap<>();
+        user.put("name", "Patch Me");
+        user.put("email", "patch.me@example.com");
+        String created = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+        String etag = mockMvc.perform(get("/api/users/{id}", id))
+                .andReturn().getResponse().getHeader("ETag");
+        String since = lastChangeCursor(null);
+
+        String patchedEtag = mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":\"Patched\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Patched"))
+                .andExpect(jsonPath("$.email").value("patch.me@example.com"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(patchedEtag);
+
+        // Изменение видно при чтении (кеши сброшены) и попало в ленту изменений
+        mockMvc.perform(get("/api/users/{id}", id))
+                .andExpect(jsonPath("$.name").value("Patched"))
+                .andExpect(jsonPath("$.email").value("patch.me@example.com"));
+        mockMvc.perform(get("/api/users/{id}/summary", id))
+                .andExpect(jsonPath("$.name").value("Patched"));
+        List<JsonNode> changes = changesSince(since);
+        assertEquals(1, changes.size());
+        assertEquals("UPDATE", changes.get(0).get("type").asText());
+        assertEquals("Patched", changes.get(0).get("data").get("name").asText());
+
+        // Ошибки проверяются только у переданных полей; неизменяемые поля и null отклоняются
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"email\":\"not-an-email\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(startsWith("email:")));
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"orders\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("orders: cannot be changed"));
+
+        // ETag, полученный до изменения, устарел; несуществующий пользователь - 404
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .header("If-Match", etag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":\"Too Late\"}"))
+                .andExpect(status().isPreconditionFailed());
+        // ETag ответа PATCH актуален: пустой патч возвращает тот же ETag, и по нему проходит следующее изменение
+        String emptyPatchEtag = mockMvc.perform(patch("/api/users/{id}", id)
+                        .header("If-Match", patchedEtag)
+                        .contentType("application/merge-patch+json")
+                        .content("{}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", patchedEtag))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .header("If-Match", emptyPatchEtag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":\"Patched Again\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Patched Again"));
+        mockMvc.perform(patch("/api/users/{id}", 999999)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":\"Nobody\"}"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isNoContent());
+    }
+
     // Тест для удаления пользователя
     @Test
     void testDeleteUser() throws Exception {
@@ -0,0 +1,32 @@
+package itk.academy.orekhov.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import itk.academy.orekhov.view.Views;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSummaryDtoTest {
+
+    // Проекция в представлении UserSummary сериализуется так же, как сущность User
+    @Test
+    void testSerializationWithUserSummaryView() throws Exception {
+        UserSummaryDto dto = new UserSummaryDto(1L, "John Doe", "john.doe@example.com");
+
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writerWithView(Views.UserSummary.class).writeValueAsString(dto);
+
+        assertEquals("{\"id\":1,\"name\":\"John Doe\",\"email\":\"john.doe@example.com\"}", json);
+    }
+
+    // Проекция входит и в более широкое представление UserDetails
+    @Test
+    void testSerializationWithUserDetailsView() throws Exception {
+        UserSummaryDto dto = new UserSummaryDto(1L, "John Doe", "john.doe@example.com");
+
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writerWithView(Views.UserDetails.class).writeValueAsString(dto);
+
+        assertTrue(json.contains("\"email\":\"john.doe@example.com\""));
+    }
+}
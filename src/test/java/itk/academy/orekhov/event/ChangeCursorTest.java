@@ -0,0 +1,37 @@
+package itk.academy.orekhov.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCursorTest {
+
+    // Тест кодирования и обратного декодирования курсора
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        ChangeCursor cursor = new ChangeCursor(123_456_789L, 42L);
+        assertEquals(cursor, ChangeCursor.decode(cursor.encode()));
+    }
+
+    // Отсутствующий курсор означает начало ленты
+    @Test
+    void testDecodeEmptyCursor() {
+        assertEquals(ChangeCursor.START, ChangeCursor.decode(null));
+        assertEquals(ChangeCursor.START, ChangeCursor.decode(""));
+    }
+
+    // Некорректный курсор (в том числе курсор страниц пользователей без номера транзакции) приводит к ошибке 400
+    @Test
+    void testDecodeInvalidCursor() {
+        String keysetCursor = Base64.getUrlEncoder().withoutPadding().encodeToString("42".getBytes(StandardCharsets.US_ASCII));
+        for (String cursor : new String[]{"not a cursor!", keysetCursor}) {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> ChangeCursor.decode(cursor));
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        }
+    }
+}
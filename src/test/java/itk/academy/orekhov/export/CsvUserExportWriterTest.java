@@ -0,0 +1,67 @@
+package itk.academy.orekhov.export;
+
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvUserExportWriterTest {
+
+    // Строка на каждый заказ, пользователь без заказов - одна строка с пустыми полями заказа
+    @Test
+    void testWriteUsers() throws Exception {
+        User withOrders = user(1L, "John Doe", "john.doe@example.com");
+        withOrders.getOrders().add(order(10L, "Laptop", 1200.5, "NEW"));
+        withOrders.getOrders().add(order(11L, "Mouse", null, null));
+        User withoutOrders = user(2L, "Jane", "jane@example.com");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUserExportWriter writer = new CsvUserExportWriter(out);
+        writer.write(withOrders);
+        writer.write(withoutOrders);
+        writer.finish();
+
+        assertEquals(CsvUserExportWriter.HEADER + "\r\n"
+                        + "1,John Doe,john.doe@example.com,10,Laptop,1200.5,NEW\r\n"
+                        + "1,John Doe,john.doe@example.com,11,Mouse,,\r\n"
+                        + "2,Jane,jane@example.com,,,,\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    // Значения с запятыми, кавычками и переводами строк экранируются по RFC 4180
+    @Test
+    void testQuoting() throws Exception {
+        User user = user(1L, "Doe, \"Johnny\"", "john@example.com");
+        user.getOrders().add(order(10L, "Line\nbreak", 1.0, "NEW"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUserExportWriter writer = new CsvUserExportWriter(out);
+        writer.write(user);
+        writer.finish();
+
+        assertEquals(CsvUserExportWriter.HEADER + "\r\n"
+                        + "1,\"Doe, \"\"Johnny\"\"\",john@example.com,10,\"Line\nbreak\",1.0,NEW\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static User user(Long id, String name, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static Order order(Long id, String product, Double amount, String status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setProduct(product);
+        order.setAmount(amount);
+        order.setStatus(status);
+        return order;
+    }
+}
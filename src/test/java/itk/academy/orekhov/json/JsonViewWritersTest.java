@@ -0,0 +1,127 @@
+package itk.academy.orekhov.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.Order;
+import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.metrics.SerializationMetrics;
+import itk.academy.orekhov.view.Views;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonViewWritersTest {
+
+    // Тот же режим включения свойств без @JsonView, что и в application.properties
+    private final ObjectMapper mapper = JsonMapper.builder().enable(MapperFeature.DEFAULT_VIEW_INCLUSION).build();
+    private final JsonViewWriters writers = new JsonViewWriters(mapper,
+            List.of(Views.UserSummary.class, Views.UserDetails.class),
+            List.of(User.class, Order.class, UserSummaryDto.class));
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Пользователь с одним заказом
+        user = new User();
+        user.setId(1L);
+        user.setName("John Doe");
+        user.setEmail("john.doe@example.com");
+        Order order = new Order();
+        order.setId(10L);
+        order.setProduct("Laptop");
+        order.setAmount(1200.5);
+        order.setStatus("Processing");
+        order.setUser(user);
+        user.getOrders().add(order);
+    }
+
+    // Специализированный writer дает тот же JSON, что и стандартная фильтрация по представлению
+    @Test
+    void testSameOutputAsWriterWithView() throws Exception {
+        for (Class<?> view : List.of(Views.UserSummary.class, Views.UserDetails.class)) {
+            String expected = mapper.writerWithView(view).writeValueAsString(user);
+            String actual = writers.writerFor(User.class, view).writeValueAsString(user);
+            assertEquals(expected, actual, "Output differs for view " + view.getSimpleName());
+        }
+    }
+
+    // Представление UserSummary не содержит заказов
+    @Test
+    void testSummaryViewOmitsOrders() throws Exception {
+        String json = writers.writerFor(User.class, Views.UserSummary.class).writeValueAsString(user);
+        assertFalse(json.contains("orders"));
+    }
+
+    // Обобщенные типы (списки) поддерживаются
+    @Test
+    void testCollectionType() throws Exception {
+        JavaType listType = mapper.getTypeFactory().constructCollectionType(List.class, UserSummaryDto.class);
+        List<UserSummaryDto> users = List.of(new UserSummaryDto(1L, "John Doe", "john.doe@example.com"));
+        assertEquals(mapper.writerWithView(Views.UserSummary.class).writeValueAsString(users),
+                writers.writerFor(listType, Views.UserSummary.class).writeValueAsString(users));
+    }
+
+    // Неизвестное представление приводит к ошибке
+    @Test
+    void testUnsupportedView() {
+        assertFalse(writers.supports(String.class));
+        assertThrows(IllegalArgumentException.class, () -> writers.writerFor(User.class, String.class));
+    }
+
+    // Конвертер использует специализированный writer для ответов с @JsonView
+    @Test
+    void testConverterWritesView() throws Exception {
+        PrecompiledViewHttpMessageConverter converter = new PrecompiledViewHttpMessageConverter(mapper, writers);
+        MappingJacksonValue value = new MappingJacksonValue(user);
+        value.setSerializationView(Views.UserSummary.class);
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        converter.write(value, User.class, null, output);
+
+        assertEquals(mapper.writerWithView(Views.UserSummary.class).writeValueAsString(user), output.getBodyAsString());
+    }
+
+    // Конвертер учитывает время записи и размер ответа по представлению
+    @Test
+    void testConverterRecordsMetrics() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PrecompiledViewHttpMessageConverter converter =
+                new PrecompiledViewHttpMessageConverter(mapper, writers, new SerializationMetrics(registry));
+        MappingJacksonValue value = new MappingJacksonValue(user);
+        value.setSerializationView(Views.UserDetails.class);
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        converter.write(value, User.class, null, output);
+
+        assertEquals(1, registry.get("app.json.serialization").tag("view", "UserDetails").timer().count());
+        assertEquals(output.getBodyAsBytes().length,
+                registry.get("app.json.serialized.bytes").tag("view", "UserDetails").summary().totalAmount());
+        assertEquals("UNKNOWN", registry.get("app.json.serialization").timer().getId().getTag("outcome")); // Не сервлетный ответ
+    }
+
+    // Тег outcome берется из статуса сервлетного ответа
+    @Test
+    void testConverterTagsOutcome() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PrecompiledViewHttpMessageConverter converter =
+                new PrecompiledViewHttpMessageConverter(mapper, writers, new SerializationMetrics(registry));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(409);
+
+        converter.write(Map.of("error", "conflict"), Map.class, null, new ServletServerHttpResponse(response));
+
+        assertEquals(1, registry.get("app.json.serialization").tag("outcome", "CLIENT_ERROR").timer().count());
+    }
+}
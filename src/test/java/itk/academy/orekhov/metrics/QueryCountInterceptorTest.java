@@ -0,0 +1,76 @@
+package itk.academy.orekhov.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCountInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryCountInterceptor interceptor = new QueryCountInterceptor(registry);
+    private final QueryCountingStatementInspector inspector = new QueryCountingStatementInspector();
+
+    // Запросы, выполненные между началом и концом обработки, записываются с шаблоном пути
+    @Test
+    void testRecordsQueriesPerRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        inspector.inspect("select 1"); // Запрос до начала обработки не учитывается
+        interceptor.preHandle(request, response, new Object());
+        assertEquals("select 2", inspector.inspect("select 2")); // SQL не изменяется
+        inspector.inspect("select 3");
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        var summary = registry.get(QueryCountInterceptor.METRIC)
+                .tag("method", "GET")
+                .tag("uri", "/api/users/{id}")
+                .tag("outcome", "SUCCESS")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+
+        // После завершения запроса поток ничего не накапливает (потоки планировщика и фоновых задач тоже)
+        inspector.inspect("select 4");
+        assertEquals(0, QueryCountingStatementInspector.count());
+        assertTrue(QueryCountingStatementInspector.statements().isEmpty());
+    }
+
+    // Ответы с ошибкой записываются отдельно от успешных
+    @Test
+    void testTagsOutcome() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(404);
+
+        interceptor.preHandle(request, response, new Object());
+        inspector.inspect("select 1");
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertEquals(1, registry.get(QueryCountInterceptor.METRIC).tag("outcome", "CLIENT_ERROR").summary().count());
+        assertTrue(registry.find(QueryCountInterceptor.METRIC).tag("outcome", "SUCCESS").summaries().isEmpty());
+    }
+
+    // Асинхронный ответ: записывается количество запросов потока обработчика, его счетчик освобождается сразу
+    @Test
+    void testRecordsHandlerQueriesOfAsyncRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/export");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        inspector.inspect("select 1");
+        interceptor.afterConcurrentHandlingStarted(request, response, new Object());
+        assertEquals(0, QueryCountingStatementInspector.count());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertEquals(1, registry.get(QueryCountInterceptor.METRIC).tag("uri", "/api/users/export").summary().totalAmount());
+    }
+}
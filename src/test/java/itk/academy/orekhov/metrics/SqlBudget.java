@@ -0,0 +1,16 @@
+package itk.academy.orekhov.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Бюджет SQL-запросов теста, проверяемый SqlBudgetExtension после выполнения тестового метода
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    int maxStatements(); // Максимум запросов; <= 0 - без ограничения
+
+    int repeatThreshold() default 3; // Сколько одинаковых по форме запросов считается N+1; <= 0 - не проверять
+}
@@ -0,0 +1,45 @@
+package itk.academy.orekhov.metrics;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// JUnit-расширение для проверки бюджета SQL-запросов теста по QueryCountingStatementInspector.
+// Подключается полем с @RegisterExtension; проверяются только методы с @SqlBudget.
+// Счетчик обнуляется после @BeforeEach, а вызов start() внутри теста исключает из подсчета подготовку данных
+public class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        start();
+    }
+
+    // Начинает подсчет заново: запросы до этого момента не входят в бюджет
+    public void start() {
+        QueryCountingStatementInspector.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        try {
+            check(context);
+        } finally {
+            QueryCountingStatementInspector.clear();
+        }
+    }
+
+    private void check(ExtensionContext context) {
+        SqlBudget budget = context.getRequiredTestMethod().getAnnotation(SqlBudget.class);
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return; // Без бюджета или тест уже упал по другой причине
+        }
+        StatementReport report = StatementReport.capture(budget.repeatThreshold());
+        if (budget.maxStatements() > 0 && report.count() > budget.maxStatements()) {
+            throw new AssertionError("Expected at most " + budget.maxStatements() + " SQL statements but was "
+                    + report.describe());
+        }
+        if (!report.repeated().isEmpty()) {
+            throw new AssertionError("Repeated SQL statements (possible N+1): " + report.describe());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package itk.academy.orekhov.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlBudgetGuardTest {
+
+    private final QueryCountingStatementInspector inspector = new QueryCountingStatementInspector();
+
+    @AfterEach
+    void tearDown() {
+        QueryCountingStatementInspector.clear();
+    }
+
+    // В режиме FAIL превышение бюджета до записи ответа превращается в исключение
+    @Test
+    void testFailModeThrowsWhenOverBudget() {
+        SqlBudgetProperties properties = new SqlBudgetProperties();
+        properties.setMode(SqlBudgetProperties.Mode.FAIL);
+        properties.getEndpoints().put("GET /api/users/{id}", endpoint(2));
+        SqlBudgetGuard guard = new SqlBudgetGuard(properties);
+
+        QueryCountingStatementInspector.reset();
+        inspector.inspect("select id from users");
+        inspector.inspect("select id from orders");
+        inspector.inspect("select count(*) from orders");
+
+        SqlBudgetExceededException ex = assertThrows(SqlBudgetExceededException.class,
+                () -> guard.check(request(), true));
+        assertEquals("SQL budget exceeded for GET /api/users/{id} (budget 2): 3 SQL statements", ex.getMessage());
+    }
+
+    // Повторная проверка того же запроса и проверка после записи ответа только пишут в журнал
+    @Test
+    void testChecksOncePerRequestAndLogsAfterResponse() {
+        SqlBudgetProperties properties = new SqlBudgetProperties();
+        properties.setMode(SqlBudgetProperties.Mode.FAIL);
+        properties.setMaxStatements(1);
+        SqlBudgetGuard guard = new SqlBudgetGuard(properties);
+
+        QueryCountingStatementInspector.reset();
+        inspector.inspect("select 1");
+        inspector.inspect("select 2");
+
+        assertDoesNotThrow(() -> guard.check(request(), false));
+        MockHttpServletRequest request = request();
+        assertThrows(SqlBudgetExceededException.class, () -> guard.check(request, true));
+        assertDoesNotThrow(() -> guard.check(request, true));
+    }
+
+    // Повторяющиеся формы запроса считаются нарушением даже в пределах бюджета
+    @Test
+    void testRepeatedShapesFailWithinBudget() {
+        SqlBudgetProperties properties = new SqlBudgetProperties();
+        properties.setMode(SqlBudgetProperties.Mode.FAIL);
+        SqlBudgetGuard guard = new SqlBudgetGuard(properties);
+
+        QueryCountingStatementInspector.reset();
+        for (int i = 0; i < 3; i++) {
+            inspector.inspect("select o.id from orders o where o.user_id=" + i);
+        }
+
+        assertThrows(SqlBudgetExceededException.class, () -> guard.check(request(), true));
+    }
+
+    // Бюджеты эндпоинтов из application.properties связываются с ключами "МЕТОД шаблон"
+    @Test
+    void testBindsEndpointBudgetsFromApplicationProperties() throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        new PropertiesPropertySourceLoader()
+                .load("application", new ClassPathResource("application.properties"))
+                .forEach(environment.getPropertySources()::addFirst);
+        SqlBudgetProperties properties = Binder.get(environment)
+                .bind("app.sql-budget", SqlBudgetProperties.class).get();
+
+        assertEquals(2, properties.maxStatementsFor("GET /api/users/{id}"));
+        assertEquals(0, properties.repeatThresholdFor("POST /api/users/import"));
+        assertEquals(properties.getMaxStatements(), properties.maxStatementsFor("GET /unknown"));
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/{id}");
+        return request;
+    }
+
+    private static SqlBudgetProperties.Endpoint endpoint(int maxStatements) {
+        SqlBudgetProperties.Endpoint endpoint = new SqlBudgetProperties.Endpoint();
+        endpoint.setMaxStatements(maxStatements);
+        return endpoint;
+    }
+}
@@ -0,0 +1,71 @@
+package itk.academy.orekhov.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementReportTest {
+
+    private final QueryCountingStatementInspector inspector = new QueryCountingStatementInspector();
+
+    @AfterEach
+    void tearDown() {
+        QueryCountingStatementInspector.clear(); // Счетчик общий для потока
+    }
+
+    @Test
+    void testShapeReplacesLiteralsAndInLists() {
+        assertEquals("select * from orders o where o.user_id in (?...) and o.status=? and o.amount>?",
+                StatementReport.shape("select *   from orders o\n where o.user_id in (?, ?,?) "
+                        + "and o.status='It''s' and o.amount>100"));
+        // Списки IN разной длины сводятся к одной форме
+        assertEquals(StatementReport.shape("select id from users where id in (?,?)"),
+                StatementReport.shape("select id from users where id in (?, ?, ?, ?)"));
+    }
+
+    @Test
+    void testCaptureReportsRepeatedShapes() {
+        QueryCountingStatementInspector.reset();
+        inspector.inspect("select u.id from users u where u.id>? order by u.id");
+        for (int i = 0; i < 3; i++) {
+            inspector.inspect("select o.id from orders o where o.user_id=" + i); // Загрузка заказов по одному (N+1)
+        }
+
+        StatementReport report = StatementReport.capture(3);
+
+        assertEquals(4, report.count());
+        assertEquals(1, report.repeated().size());
+        assertEquals(new StatementReport.RepeatedStatement("select o.id from orders o where o.user_id=?", 3),
+                report.repeated().get(0));
+        assertTrue(report.describe().contains("3x select o.id from orders o"));
+    }
+
+    // Число различных текстов SQL ограничено, общий счетчик продолжает расти
+    @Test
+    void testTrackedStatementsAreCapped() {
+        QueryCountingStatementInspector.reset();
+        for (int i = 0; i <= QueryCountingStatementInspector.MAX_TRACKED_STATEMENTS; i++) {
+            inspector.inspect("select " + i);
+        }
+        inspector.inspect("select 0");
+
+        assertEquals(QueryCountingStatementInspector.MAX_TRACKED_STATEMENTS + 2L, QueryCountingStatementInspector.count());
+        assertEquals(QueryCountingStatementInspector.MAX_TRACKED_STATEMENTS, QueryCountingStatementInspector.statements().size());
+        assertEquals(2, QueryCountingStatementInspector.statements().get("select 0"));
+    }
+
+    @Test
+    void testCaptureWithoutThreshold() {
+        QueryCountingStatementInspector.reset();
+        for (int i = 0; i < 5; i++) {
+            inspector.inspect("select 1");
+        }
+
+        StatementReport report = StatementReport.capture(0);
+
+        assertEquals(5, report.count());
+        assertTrue(report.repeated().isEmpty());
+    }
+}
@@ -0,0 +1,31 @@
+package itk.academy.orekhov.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    // Тест кодирования и обратного декодирования курсора
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        String cursor = KeysetCursor.encode(42L);
+        assertEquals(42L, KeysetCursor.decode(cursor));
+    }
+
+    // Отсутствующий курсор означает начало выборки
+    @Test
+    void testDecodeEmptyCursor() {
+        assertEquals(0L, KeysetCursor.decode(null));
+        assertEquals(0L, KeysetCursor.decode(""));
+    }
+
+    // Некорректный курсор приводит к ошибке 400
+    @Test
+    void testDecodeInvalidCursor() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> KeysetCursor.decode("not a cursor!"));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+}
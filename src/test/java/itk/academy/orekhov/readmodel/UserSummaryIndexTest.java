@@ -0,0 +1,87 @@
+package itk.academy.orekhov.readmodel;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserSummaryIndexTest {
+
+    // Записанные пользователи находятся и после нескольких увеличений таблицы и колонок
+    @Test
+    void testPutAndGetWithGrowth() {
+        UserSummaryIndex index = new UserSummaryIndex(4);
+        for (long id = 1; id <= 10_000; id++) {
+            assertTrue(index.putIfNewer(id, 0, "User " + id, "user" + id + "@example.com"));
+        }
+        assertEquals(10_000, index.size());
+        for (long id = 1; id <= 10_000; id++) {
+            assertEquals(new UserSummaryDto(id, "User " + id, "user" + id + "@example.com"), index.get(id));
+        }
+        assertNull(index.get(10_001));
+    }
+
+    // Запись со старой или той же версией не заменяет более новую
+    @Test
+    void testOlderVersionIsIgnored() {
+        UserSummaryIndex index = new UserSummaryIndex(16);
+        assertTrue(index.putIfNewer(1, 2, "New", "new@example.com"));
+        assertFalse(index.putIfNewer(1, 1, "Old", "old@example.com"));
+        assertFalse(index.putIfNewer(1, 2, "Same", "same@example.com"));
+        assertEquals("New", index.get(1).name());
+        assertTrue(index.putIfNewer(1, 3, "Newer", "newer@example.com"));
+        assertEquals(new UserSummaryDto(1L, "Newer", "newer@example.com"), index.get(1));
+        assertEquals(1, index.size());
+    }
+
+    // Удаленный пользователь не возвращается запаздывающим событием, соседние ключи не теряются
+    @Test
+    void testDeletedUserStaysDeleted() {
+        UserSummaryIndex index = new UserSummaryIndex(16);
+        for (long id = 1; id <= 100; id++) {
+            index.putIfNewer(id, 0, "User " + id, null);
+        }
+        index.markDeleted(50);
+        index.markDeleted(1_000); // Удаление раньше создания (события не по порядку)
+        assertNull(index.get(50));
+        assertFalse(index.putIfNewer(50, 5, "Resurrected", null));
+        assertFalse(index.putIfNewer(1_000, 0, "Late insert", null));
+        assertNull(index.get(1_000));
+        assertEquals(99, index.size());
+        for (long id = 1; id <= 100; id++) {
+            if (id != 50) {
+                assertEquals("User " + id, index.get(id).name());
+            }
+        }
+    }
+
+    // null и строки не из ASCII сохраняются как есть
+    @Test
+    void testNullAndUnicodeValues() {
+        UserSummaryIndex index = new UserSummaryIndex(16);
+        index.putIfNewer(7, 0, "Иван Петров", null);
+        index.putIfNewer(8, 0, null, "");
+        assertEquals(new UserSummaryDto(7L, "Иван Петров", null), index.get(7));
+        assertEquals(new UserSummaryDto(8L, null, ""), index.get(8));
+        assertThrows(IllegalArgumentException.class, () -> index.putIfNewer(0, 0, "Zero", null));
+    }
+
+    // Частые обновления не раздувают память: замененные строки удаляются уплотнением
+    @Test
+    void testCompactionReclaimsReplacedValues() {
+        UserSummaryIndex index = new UserSummaryIndex(1_000);
+        for (long version = 0; version < 200; version++) {
+            for (long id = 1; id <= 1_000; id++) {
+                index.putIfNewer(id, version, "User " + id + " v" + version, "user" + id + "@example.com");
+            }
+        }
+        for (long id = 1; id <= 1_000; id++) {
+            assertEquals("User " + id + " v199", index.get(id).name());
+        }
+        assertTrue(index.sizeInBytes() < 512 * 1024, "index bytes: " + index.sizeInBytes());
+    }
+}
@@ -0,0 +1,95 @@
+package itk.academy.orekhov.readmodel;
+
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.event.ChangeCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserSummarySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    // Записанные пользователи, удаления, время загрузки и позиция в ленте читаются после закрытия и повторного открытия файла
+    @Test
+    void testRoundTrip() {
+        Path path = directory.resolve("users.snapshot");
+        try (UserSummarySnapshot snapshot = UserSummarySnapshot.create(path, 4)) {
+            snapshot.setCursor(new ChangeCursor(42L, 7L), 1_700_000_100_000L);
+            for (long id = 1; id <= 5_000; id++) { // С несколькими перезаписями файла при росте
+                assertTrue(snapshot.putIfNewer(id, 0, "User " + id, "user" + id + "@example.com"));
+            }
+            snapshot.putIfNewer(7, 1, "Иван Петров", null);
+            snapshot.markDeleted(9);
+            snapshot.setLoadedAt(1_700_000_000_000L);
+        }
+
+        try (UserSummarySnapshot snapshot = UserSummarySnapshot.open(path)) {
+            assertNotNull(snapshot);
+            assertEquals(4_999, snapshot.size());
+            assertEquals(1_700_000_000_000L, snapshot.loadedAt());
+            assertEquals(new ChangeCursor(42L, 7L), snapshot.cursor()); // Позиция в ленте переживает перезаписи файла
+            assertEquals(1_700_000_100_000L, snapshot.syncedAt());
+            assertEquals(new UserSummaryDto(1L, "User 1", "user1@example.com"), snapshot.get(1));
+            assertEquals(new UserSummaryDto(5_000L, "User 5000", "user5000@example.com"), snapshot.get(5_000));
+            assertEquals(new UserSummaryDto(7L, "Иван Петров", null), snapshot.get(7));
+            assertNull(snapshot.get(9));
+            assertNull(snapshot.get(5_001));
+            assertFalse(snapshot.putIfNewer(9, 2, "Resurrected", null)); // Удаление сохраняется в файле
+            assertFalse(snapshot.putIfNewer(7, 0, "Older", null)); // Как и версии
+        }
+        assertFalse(Files.exists(directory.resolve("users.snapshot.rewrite")));
+    }
+
+    // Снимок, запись в который была прервана (без checkpoint или close), при открытии не принимается
+    @Test
+    void testInterruptedSnapshotIsRejected() {
+        Path path = directory.resolve("users.snapshot");
+        UserSummarySnapshot snapshot = UserSummarySnapshot.create(path, 16);
+        snapshot.putIfNewer(1, 0, "User 1", "user1@example.com");
+        snapshot.checkpoint();
+        UserSummarySnapshot reopened = UserSummarySnapshot.open(path); // После контрольной точки файл целостный
+        assertNotNull(reopened);
+        assertEquals(1, reopened.size());
+        reopened.close();
+
+        snapshot.putIfNewer(2, 0, "User 2", "user2@example.com"); // Изменение снимает пометку целостности
+        assertNull(UserSummarySnapshot.open(path));
+        snapshot.close();
+        try (UserSummarySnapshot closed = UserSummarySnapshot.open(path)) {
+            assertEquals(2, closed.size());
+        }
+    }
+
+    // Частые обновления не раздувают файл: замененные строки удаляются при перезаписи
+    @Test
+    void testRewriteReclaimsReplacedValues() {
+        try (UserSummarySnapshot snapshot = UserSummarySnapshot.create(directory.resolve("users.snapshot"), 1_000)) {
+            for (long version = 0; version < 100; version++) {
+                for (long id = 1; id <= 1_000; id++) {
+                    snapshot.putIfNewer(id, version, "User " + id + " v" + version, "user" + id + "@example.com");
+                }
+            }
+            assertEquals("User 1000 v99", snapshot.get(1_000).name());
+            assertTrue(snapshot.sizeInBytes() < 512 * 1024, "snapshot bytes: " + snapshot.sizeInBytes());
+        }
+    }
+
+    // Файл другого формата не открывается
+    @Test
+    void testForeignFileIsRejected() throws Exception {
+        Path path = directory.resolve("foreign.snapshot");
+        Files.write(path, new byte[4096]);
+        assertNull(UserSummarySnapshot.open(path));
+        assertNull(UserSummarySnapshot.open(directory.resolve("missing.snapshot")));
+    }
+}
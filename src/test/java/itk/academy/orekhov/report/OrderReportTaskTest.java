@@ -0,0 +1,91 @@
+package itk.academy.orekhov.report;
+
+import itk.academy.orekhov.dto.SpenderDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderReportTaskTest {
+
+    private static final String[] STATUSES = {"NEW", "PAID", null};
+
+    // Пользователи 1..count: у пользователя id заказов id % 4, сумма заказа i - id * 0.1 + i
+    private static void readUsers(long fromId, long toId, OrderReportAccumulator into) {
+        for (long id = fromId; id < toId; id++) {
+            into.beginUser(id, "User " + id, "user" + id + "@example.com");
+            for (int i = 0; i < id % 4; i++) {
+                into.addOrder(STATUSES[(int) ((id + i) % STATUSES.length)], id * 0.1 + i);
+            }
+        }
+    }
+
+    // Результат по диапазонам в пуле fork-join совпадает с последовательным проходом
+    @Test
+    void testParallelResultMatchesSequential() {
+        OrderReportAccumulator sequential = new OrderReportAccumulator(5);
+        readUsers(1, 1001, sequential);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            OrderReportAccumulator parallel = pool.invoke(new OrderReportTask(1, 1001, 64, 5, OrderReportTaskTest::readUsers));
+
+            assertEquals(1000, parallel.userCount());
+            assertEquals(sequential.orderCount(), parallel.orderCount());
+            assertEquals(sequential.totalAmount(), parallel.totalAmount());
+            assertEquals(sequential.byStatus(), parallel.byStatus());
+            assertEquals(sequential.topSpenders(), parallel.topSpenders());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Каждый id попадает ровно в один листовой диапазон, и листьев столько, сколько возвращает ranges
+    @Test
+    void testRangesCoverIdsOnce() {
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        Set<Long> leaves = ConcurrentHashMap.newKeySet();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            pool.invoke(new OrderReportTask(10, 1011, 100, 0, (fromId, toId, into) -> {
+                assertTrue(toId - fromId <= 100);
+                leaves.add(fromId);
+                for (long id = fromId; id < toId; id++) {
+                    assertTrue(seen.add(id), "id " + id + " read twice");
+                }
+            }));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1001, seen.size());
+        assertEquals(OrderReportTask.ranges(10, 1011, 100), leaves.size());
+    }
+
+    // Слияние хранит только top покупателей: по убыванию суммы, при равенстве - по id
+    @Test
+    void testMergeKeepsTopSpenders() {
+        OrderReportAccumulator left = new OrderReportAccumulator(2);
+        left.beginUser(1, "A", "a@example.com");
+        left.addOrder("NEW", 10.0);
+        left.beginUser(2, "B", "b@example.com");
+        left.addOrder("NEW", 5.0);
+        OrderReportAccumulator right = new OrderReportAccumulator(2);
+        right.beginUser(3, "C", "c@example.com");
+        right.addOrder("PAID", 10.0);
+        right.beginUser(4, "D", "d@example.com"); // Пользователь без заказов
+
+        left.merge(right);
+
+        List<SpenderDto> top = left.topSpenders();
+        assertEquals(List.of(1L, 3L), top.stream().map(SpenderDto::userId).toList());
+        assertEquals(0, new BigDecimal("10.0").compareTo(top.get(0).totalAmount()));
+        assertEquals(4, left.userCount());
+        assertEquals(3, left.orderCount());
+        assertEquals(List.of("NEW", "PAID"), left.byStatus().stream().map(s -> s.status()).toList());
+    }
+}
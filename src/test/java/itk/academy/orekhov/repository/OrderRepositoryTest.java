@@ -2,12 +2,17 @@ package itk.academy.orekhov.repository;
 
 import itk.academy.orekhov.entity.Order;
 import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.metrics.SqlBudget;
+import itk.academy.orekhov.metrics.SqlBudgetExtension;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -34,6 +39,12 @@ public class OrderRepositoryTest {
     @Autowired
     private UserRepository userRepository; // Для создания пользователя, связанного с заказами
 
+    @Autowired
+    private TestEntityManager entityManager; // Для сброса контекста персистентности между записью и чтением
+
+    @RegisterExtension
+    SqlBudgetExtension sqlBudget = new SqlBudgetExtension(); // Бюджет SQL-запросов для методов с @SqlBudget
+
     private User user;
 
     @BeforeAll
@@ -148,4 +159,63 @@ public class OrderRepositoryTest {
         Optional<Order> deletedOrder = orderRepository.findById(savedOrder.getId());
         assertThat(deletedOrder).isNotPresent();
     }
+
+    @Test
+    @SqlBudget(maxStatements = 1)
+    public void testFindAllOrdersDoesNotLoadUsers() {
+        // Создание и сохранение трех заказов пользователя
+        for (String product : List.of("Monitor", "Webcam", "Microphone")) {
+            Order order = new Order();
+            order.setProduct(product);
+            order.setAmount(100.00);
+            order.setStatus("Processing");
+            order.setUser(user);
+            orderRepository.save(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        sqlBudget.start(); // Подготовка данных не входит в бюджет
+
+        // Чтение всех заказов с обращением к id пользователя
+        List<Order> orders = orderRepository.findAll();
+
+        // Пользователь связан лениво: id берется из прокси, отдельные запросы на каждый заказ не выполняются
+        assertThat(orders).hasSize(3);
+        assertThat(orders).extracting(order -> order.getUser().getId()).containsOnly(user.getId());
+    }
+
+    @Test
+    @SqlBudget(maxStatements = 2)
+    public void testOrderPagesAndFirstOrdersOfUsers() {
+        // Второй пользователь и по три заказа у каждого
+        User second = new User();
+        second.setName("Jane Doe");
+        second.setEmail("jane.doe@example.com");
+        userRepository.save(second);
+        for (User owner : List.of(user, second)) {
+            for (String status : List.of("Processing", "Shipped", "Processing")) {
+                Order order = new Order();
+                order.setProduct("Item");
+                order.setAmount(owner == user ? 10.00 : 20.00);
+                order.setStatus(status);
+                order.setUser(owner);
+                orderRepository.save(order);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        sqlBudget.start(); // Подготовка данных не входит в бюджет
+
+        // Страница заказов пользователя с фильтром по статусу
+        List<Order> processing = orderRepository.findBy(
+                OrderSpecifications.userOrdersAfter(user.getId(), 0L, "Processing", null, 15.00),
+                query -> query.sortBy(Sort.by("id")).all());
+        assertThat(processing).hasSize(2).extracting(Order::getStatus).containsOnly("Processing");
+
+        // Первые два заказа каждого пользователя одним запросом
+        List<Order> first = orderRepository.findFirstOrdersOfUsers(List.of(user.getId(), second.getId()), 2);
+        assertThat(first).hasSize(4);
+        assertThat(first).extracting(order -> order.getUser().getId())
+                .containsExactly(user.getId(), user.getId(), second.getId(), second.getId());
+    }
 }
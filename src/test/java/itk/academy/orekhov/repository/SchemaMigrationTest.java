@@ -0,0 +1,138 @@
+package itk.academy.orekhov.repository;
+
+import itk.academy.orekhov.entity.User;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Схема из миграций Flyway: контекст поднимается только если Hibernate (ddl-auto=validate) согласен с ней
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // Disable embedded database
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:postgresql://localhost:5433/ecommerce_db_test",
+        "spring.datasource.username=postgres",
+        "spring.datasource.password=postgres",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.flyway.enabled=true", // Схему создают миграции, а не Hibernate
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+public class SchemaMigrationTest {
+
+    private static PostgreSQLContainer<?> postgresContainer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource; // Для чтения метаданных индексов
+
+    @BeforeAll
+    public static void setUpClass() {
+        // Запуск контейнера PostgreSQL с TestContainers
+        postgresContainer = new PostgreSQLContainer<>("postgres:latest")
+                .withDatabaseName("ecommerce_db_test")
+                .withUsername("postgres")
+                .withPassword("postgres");
+        postgresContainer.start();
+
+        // Устанавливаем URL для подключения к тестовой базе данных PostgreSQL
+        System.setProperty("spring.datasource.url", postgresContainer.getJdbcUrl());
+        System.setProperty("spring.datasource.username", postgresContainer.getUsername());
+        System.setProperty("spring.datasource.password", postgresContainer.getPassword());
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        // Остановка контейнера после выполнения тестов
+        if (postgresContainer != null) {
+            postgresContainer.stop();
+        }
+    }
+
+    @Test
+    public void testIndexesCreatedByMigrations() throws SQLException {
+        // Индексы таблиц: имя -> уникальность
+        Map<String, Boolean> userIndexes = indexes("users");
+        Map<String, Boolean> orderIndexes = indexes("orders");
+
+        assertThat(userIndexes).containsEntry("ux_users_email", true);
+        assertThat(orderIndexes).containsKeys("idx_orders_user_id_id", "idx_orders_user_id_status_id");
+        assertThat(indexes("change_events")).containsKeys("idx_change_events_tx_id_id", "idx_change_events_created_at");
+        assertThat(indexes("user_order_stats")).containsEntry("user_order_stats_pkey", true); // Ключ upsert сводок
+        assertThat(indexes("order_status_stats")).containsEntry("order_status_stats_pkey", true);
+    }
+
+    @Test
+    public void testOrdersDeletedWithUser() throws SQLException {
+        // Заказы удаляются базой вместе с пользователем (V5)
+        try (Connection connection = dataSource.getConnection();
+             ResultSet rs = connection.getMetaData().getImportedKeys(null, null, "orders")) {
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getString("FK_NAME")).isEqualTo("fk_orders_user");
+            assertThat(rs.getShort("DELETE_RULE")).isEqualTo((short) DatabaseMetaData.importedKeyCascade);
+            assertThat(rs.next()).isFalse(); // Прежний внешний ключ без каскада удален
+        }
+    }
+
+    @Test
+    public void testDuplicateEmailRejected() {
+        userRepository.saveAndFlush(newUser("First"));
+
+        // Второй пользователь с тем же email нарушает уникальный индекс
+        assertThatThrownBy(() -> userRepository.saveAndFlush(newUser("Second")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void testPooledIdsFromSequence() {
+        // Пул последовательности: id нескольких пользователей выдаются подряд без обращения к базе за каждым
+        User first = userRepository.saveAndFlush(newUser("First", "first.pooled@example.com"));
+        User second = userRepository.saveAndFlush(newUser("Second", "second.pooled@example.com"));
+
+        assertThat(second.getId()).isEqualTo(first.getId() + 1);
+        assertThat(first.getVersion()).isZero();
+    }
+
+    private Map<String, Boolean> indexes(String table) throws SQLException {
+        Map<String, Boolean> indexes = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet rs = metaData.getIndexInfo(null, null, table, false, false)) {
+                while (rs.next()) {
+                    if (rs.getString("INDEX_NAME") != null) {
+                        indexes.put(rs.getString("INDEX_NAME").toLowerCase(), !rs.getBoolean("NON_UNIQUE"));
+                    }
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private static User newUser(String name) {
+        return newUser(name, "duplicate@example.com");
+    }
+
+    private static User newUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+}
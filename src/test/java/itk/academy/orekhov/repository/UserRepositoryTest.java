@@ -1,16 +1,31 @@
 package itk.academy.orekhov.repository;
 
+import itk.academy.orekhov.dto.UserSummaryDto;
+import itk.academy.orekhov.entity.Order;
 import itk.academy.orekhov.entity.User;
+import itk.academy.orekhov.metrics.SqlBudget;
+import itk.academy.orekhov.metrics.SqlBudgetExtension;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,7 +36,8 @@ import static org.assertj.core.api.Assertions.assertThat;
         "spring.datasource.url=jdbc:postgresql://localhost:5433/ecommerce_db_test",
         "spring.datasource.username=postgres",
         "spring.datasource.password=postgres",
-        "spring.datasource.driver-class-name=org.postgresql.Driver"
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.properties.hibernate.generate_statistics=true" // Статистика Hibernate для подсчета SQL-запросов
 })
 public class UserRepositoryTest {
 
@@ -30,6 +46,18 @@ public class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager; // Для сброса контекста персистентности между записью и чтением
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Источник статистики Hibernate
+
+    @Autowired
+    private PlatformTransactionManager transactionManager; // Отдельные фиксируемые транзакции в тестах без общей транзакции
+
+    @RegisterExtension
+    SqlBudgetExtension sqlBudget = new SqlBudgetExtension(); // Бюджет SQL-запросов для методов с @SqlBudget
+
     private User user;
 
     @BeforeAll
@@ -135,4 +163,150 @@ public class UserRepositoryTest {
         Optional<User> deletedUser = userRepository.findById(savedUser.getId());
         assertThat(deletedUser).isNotPresent();
     }
+
+    @Test
+    @SqlBudget(maxStatements = 1)
+    public void testFindWithOrdersByIdUsesSingleStatement() {
+        // Сохранение пользователя с двумя заказами
+        addOrder(user, "Laptop");
+        addOrder(user, "Mouse");
+        User savedUser = userRepository.save(user);
+        entityManager.flush();
+        entityManager.clear(); // Следующее чтение должно идти в базу, а не в контекст персистентности
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        sqlBudget.start(); // Подготовка данных не входит в бюджет
+
+        // Чтение пользователя для представления UserDetails, включая обход заказов
+        User foundUser = userRepository.findWithOrdersById(savedUser.getId()).orElseThrow();
+        assertThat(foundUser.getOrders()).extracting(Order::getProduct).containsExactlyInAnyOrder("Laptop", "Mouse");
+
+        // Проверка, что пользователь и заказы получены за один запрос (без N+1)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SqlBudget(maxStatements = 1)
+    public void testFindWithOrdersByIdInUsesSingleStatement() {
+        // Сохранение трех пользователей с заказами
+        User second = new User();
+        second.setName("Jane Doe");
+        second.setEmail("jane.doe@example.com");
+        User third = new User();
+        third.setName("Jim Doe");
+        third.setEmail("jim.doe@example.com");
+        for (User u : List.of(user, second, third)) {
+            addOrder(u, "Book");
+            addOrder(u, "Pen");
+            userRepository.save(u);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        sqlBudget.start(); // Подготовка данных не входит в бюджет
+
+        // Пакетное чтение деталей нескольких пользователей
+        List<User> users = userRepository.findWithOrdersByIdInOrderByIdAsc(
+                List.of(user.getId(), second.getId(), third.getId()));
+        assertThat(users).hasSize(3);
+        users.forEach(u -> assertThat(u.getOrders()).hasSize(2));
+
+        // Количество запросов не зависит от количества пользователей
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindSummariesAfterReadsProjections() {
+        // Сохранение двух пользователей
+        User first = userRepository.save(user);
+        User second = new User();
+        second.setName("Jane Doe");
+        second.setEmail("jane.doe@example.com");
+        userRepository.save(second);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear(); // Статистика общая для фабрики: загрузки из предыдущих тестов не учитываются
+
+        // Первая страница из одной проекции
+        List<UserSummaryDto> page = userRepository.findSummariesAfter(0L, Limit.of(1));
+        assertThat(page).containsExactly(new UserSummaryDto(first.getId(), "John Doe", "john.doe@example.com"));
+
+        // Следующая страница начинается после id первой
+        List<UserSummaryDto> next = userRepository.findSummariesAfter(first.getId(), Limit.of(10));
+        assertThat(next).extracting(UserSummaryDto::email).containsExactly("jane.doe@example.com");
+
+        // Проекции не попадают в контекст персистентности
+        assertThat(entityManager.getEntityManager().contains(first)).isFalse();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Кеш второго уровня заполняется после фиксации транзакции
+    public void testFindWithOrdersByIdServedFromSecondLevelCache() {
+        // Сохранение пользователя с заказом (фиксируется сразу, тест выполняется без общей транзакции)
+        addOrder(user, "Laptop");
+        User savedUser = userRepository.save(user);
+        try {
+            // Первое чтение идет в базу и заполняет кеш
+            userRepository.findWithOrdersById(savedUser.getId()).orElseThrow();
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            // Повторное чтение обслуживается кешем запросов и вторым уровнем кеша без обращения к базе
+            User cachedUser = userRepository.findWithOrdersById(savedUser.getId()).orElseThrow();
+            assertThat(cachedUser.getOrders()).extracting(Order::getProduct).containsExactly("Laptop");
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getQueryCacheHitCount()).isPositive();
+        } finally {
+            userRepository.deleteById(savedUser.getId()); // Удаление через Hibernate также инвалидирует кеш
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Версия увеличивается перед фиксацией транзакции
+    public void testOrderChangeIncrementsUserVersion() {
+        User savedUser = userRepository.save(user);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            // Новый заказ существующего пользователя увеличивает его версию (ETag и кеш ответов устаревают)
+            transaction.executeWithoutResult(status ->
+                    addOrder(userRepository.findById(savedUser.getId()).orElseThrow(), "Laptop"));
+            Long afterInsert = userRepository.findById(savedUser.getId()).orElseThrow().getVersion();
+            assertThat(afterInsert).isGreaterThan(savedUser.getVersion());
+
+            // Изменение заказа - тоже, хотя сам пользователь не менялся
+            transaction.executeWithoutResult(status -> userRepository.findWithOrdersById(savedUser.getId()).orElseThrow()
+                    .getOrders().get(0).setStatus("Shipped"));
+            assertThat(userRepository.findById(savedUser.getId()).orElseThrow().getVersion()).isGreaterThan(afterInsert);
+        } finally {
+            userRepository.deleteById(savedUser.getId());
+        }
+
+        // Пользователь, вставленный вместе с заказами, сохраняет версию, записанную Hibernate
+        User withOrders = new User();
+        withOrders.setName("Owner");
+        withOrders.setEmail("owner@example.com");
+        addOrder(withOrders, "Phone");
+        User inserted = transaction.execute(status -> userRepository.save(withOrders));
+        try {
+            assertThat(userRepository.findById(inserted.getId()).orElseThrow().getVersion()).isEqualTo(inserted.getVersion());
+        } finally {
+            userRepository.deleteById(inserted.getId());
+        }
+    }
+
+    // Вспомогательный метод: добавляет заказ пользователю с двусторонней связью
+    private static void addOrder(User owner, String product) {
+        Order order = new Order();
+        order.setProduct(product);
+        order.setAmount(10.0);
+        order.setStatus("Processing");
+        order.setUser(owner);
+        owner.getOrders().add(order);
+    }
 }
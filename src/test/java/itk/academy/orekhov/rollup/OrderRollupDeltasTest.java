@@ -0,0 +1,69 @@
+package itk.academy.orekhov.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRollupDeltasTest {
+
+    // Изменения одного ключа сворачиваются в одну строку сводки
+    @Test
+    void testDeltasFoldedByKey() {
+        OrderRollupDeltas deltas = new OrderRollupDeltas();
+        deltas.add(new OrderRollupState(1L, "NEW", 10.5), 1);
+        deltas.add(new OrderRollupState(1L, "NEW", 1.5), 1);
+        deltas.add(new OrderRollupState(2L, "NEW", 3.0), 1);
+
+        OrderRollupDeltas.Delta user = deltas.byUser().get(new OrderRollupDeltas.UserStatus(1L, "NEW"));
+        assertEquals(2, user.count);
+        assertEquals(0, new BigDecimal("12.0").compareTo(user.amount));
+        assertEquals(3, deltas.byStatus().get("NEW").count);
+        assertEquals(0, new BigDecimal("15.0").compareTo(deltas.byStatus().get("NEW").amount));
+    }
+
+    // Смена статуса вычитает заказ из прежнего статуса и добавляет в новый; сумма возвращается ровно к нулю
+    @Test
+    void testStatusChangeMovesOrder() {
+        OrderRollupDeltas deltas = new OrderRollupDeltas();
+        deltas.add(new OrderRollupState(1L, "NEW", 0.1), 1);
+        deltas.add(new OrderRollupState(1L, "NEW", 0.1), -1);
+        deltas.add(new OrderRollupState(1L, "PAID", 0.1), 1);
+
+        OrderRollupDeltas.Delta previous = deltas.byStatus().get("NEW");
+        assertEquals(0, previous.count);
+        assertEquals(0, previous.amount.signum());
+        assertTrue(previous.isZero());
+        assertEquals(1, deltas.byStatus().get("PAID").count);
+    }
+
+    // Заказы без статуса учитываются под пустой строкой, заказы без пользователя - только в общих сводках;
+    // строки упорядочены по ключу, чтобы транзакции блокировали их в одном порядке
+    @Test
+    void testNullStatusAndUser() {
+        OrderRollupDeltas deltas = new OrderRollupDeltas();
+        deltas.add(new OrderRollupState(5L, null, null), 1);
+        deltas.add(new OrderRollupState(null, "NEW", 2.0), 1);
+        deltas.add(new OrderRollupState(3L, "NEW", 1.0), 1);
+        deltas.add(null, 1);
+
+        assertEquals(List.of(new OrderRollupDeltas.UserStatus(3L, "NEW"), new OrderRollupDeltas.UserStatus(5L, "")),
+                List.copyOf(deltas.byUser().keySet()));
+        assertEquals(List.of("", "NEW"), List.copyOf(deltas.byStatus().keySet()));
+        assertEquals(0, deltas.byStatus().get("").amount.signum());
+    }
+
+    // Готовая разница по статусу (заказы, удаленные каскадом) сворачивается с разницами отдельных заказов
+    @Test
+    void testStatusDeltaFolded() {
+        OrderRollupDeltas deltas = new OrderRollupDeltas();
+        deltas.add(new OrderRollupState(1L, "NEW", 2.5), 1);
+        deltas.addStatus("NEW", -3, new BigDecimal("-7.5"));
+
+        assertEquals(-2, deltas.byStatus().get("NEW").count);
+        assertEquals(0, new BigDecimal("-5.0").compareTo(deltas.byStatus().get("NEW").amount));
+        assertEquals(1, deltas.byUser().size()); // Сводки пользователей удаляются вместе с ним, а не разницей
+    }
+}
@@ -0,0 +1,49 @@
+package itk.academy.orekhov.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Проверка конфигурации регионов кеша второго уровня из application.conf
+class CacheConfigurationTest {
+
+    private final CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+    private final CacheManager cacheManager = provider.getCacheManager();
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    // Регион сущности ограничен по размеру и собирает статистику Caffeine
+    @Test
+    void testEntityRegionIsBoundedAndRecordsStats() {
+        Cache<?, ?> cache = caffeine("itk.academy.orekhov.entity.User");
+
+        assertEquals(50_000L, cache.policy().eviction().orElseThrow().getMaximum());
+        assertTrue(cache.policy().expireAfterWrite().isPresent(), "Entries should expire after write");
+        assertTrue(cache.policy().isRecordingStats(), "Native statistics should be enabled");
+    }
+
+    // Регион меток обновления не вытесняется, иначе кеш запросов может отдать устаревшие результаты
+    @Test
+    void testUpdateTimestampsRegionIsUnbounded() {
+        Cache<?, ?> cache = caffeine("default-update-timestamps-region");
+
+        assertTrue(cache.policy().eviction().isEmpty());
+        assertTrue(cache.policy().expireAfterWrite().isEmpty());
+    }
+
+    private Cache<?, ?> caffeine(String region) {
+        javax.cache.Cache<Object, Object> cache = cacheManager.getCache(region);
+        assertNotNull(cache, "Region " + region + " should be configured");
+        return cache.unwrap(Cache.class);
+    }
+}
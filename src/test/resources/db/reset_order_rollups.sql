@@ -0,0 +1,4 @@
+-- Rollup tables are not owned by Hibernate, so create-drop keeps them between test contexts;
+-- recreate them so they describe only the orders of the fresh schema
+drop table if exists user_order_stats;
+drop table if exists order_status_stats;